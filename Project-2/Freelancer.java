@@ -1,4 +1,4 @@
-public class Freelancer extends User implements Comparable<Freelancer> {
+public class Freelancer extends User implements Comparable<Freelancer>, HeapIndexed {
 
     private String serviceName;
     private int price;
@@ -25,6 +25,9 @@ public class Freelancer extends User implements Comparable<Freelancer> {
     private int cachedCompositeScore = -1;
     private boolean scoreDirty = true; // true → composite score must be recalculated
 
+    // Position in the available heap of its service (0 = not in it)
+    private int heapIndex;
+
     Freelancer(String userId, String serviceName, int price, int T, int C,
                int R, int E, int A) {
         super(userId);
@@ -63,6 +66,16 @@ public class Freelancer extends User implements Comparable<Freelancer> {
     public int getR() { return R; }
     public int getT() { return T; }
 
+    @Override
+    public int getHeapIndex() {
+        return heapIndex;
+    }
+
+    @Override
+    public void setHeapIndex(int heapIndex) {
+        this.heapIndex = heapIndex;
+    }
+
     public void setAvailable(boolean available) {
         this.available = available;
     }
@@ -0,0 +1,11 @@
+/**
+ * Element that remembers its own position in the MyMaxHeap holding it, so the heap needs
+ * no element -> index map. An element may sit in at most one heap at a time; 0 means it
+ * is in none (heap arrays are 1-based).
+ */
+public interface HeapIndexed {
+
+    int getHeapIndex();
+
+    void setHeapIndex(int index);
+}
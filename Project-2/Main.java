@@ -7,7 +7,8 @@ import java.util.*;
 public class Main {
 
     // Global user table and per-service freelancer lists
-    private static MyHashTable<String, User> users = new MyHashTable<>(1000003);
+    // Incremental resize: a registration burst never waits for the whole table to be rehashed
+    private static MyHashTable<String, User> users = new MyHashTable<>(1000003, true);
     private static MyHashTable<String, ArrayList<Freelancer>> serviceToFreelancers = new MyHashTable<>(23);
 
     public static ArrayList<Freelancer> allFreelancers = new ArrayList<>();
@@ -17,7 +18,7 @@ public class Main {
     public static MyHashTable<String, ServiceChangeInfo> serviceChangeHashTable = new MyHashTable<>(100003);
 
     // Index of AVAILABLE freelancers: serviceName -> MaxHeap<Freelancer>
-    // Heap internals keep an index map for O(1) access to positions.
+    // Freelancers store their own heap positions for O(1) access.
     private static MyHashTable<String, MyMaxHeap<Freelancer>> availableByService = new MyHashTable<>(23);
 
 
@@ -178,11 +179,31 @@ public class Main {
             availableByService.put(service, heap);
         }
 
-        // Remove old copy if any, then insert so index map and heap order are correct
+        // Remove old copy if any, then insert so stored positions and heap order are correct
         heap.remove(f);
         heap.insert(f);
     }
 
+    /**
+     * Marks an available freelancer whose composite score changed in place; the heap of its
+     * service is repaired by rebuildAvailable().
+     */
+    private static void markDirtyInAvailable(Freelancer f) {
+        MyMaxHeap<Freelancer> heap = availableByService.get(f.getServiceName());
+        if (heap != null) {
+            heap.markDirty(f);
+        }
+    }
+
+    /**
+     * Repairs every service heap after markDirtyInAvailable calls.
+     */
+    private static void rebuildAvailable() {
+        for (int slot = availableByService.nextSlot(0); slot >= 0; slot = availableByService.nextSlot(slot + 1)) {
+            availableByService.valueAt(slot).rebuildDirty();
+        }
+    }
+
     /**
      * Removes the freelancer from the available index for its service, if present.
      */
@@ -191,7 +212,7 @@ public class Main {
         String service = f.getServiceName();
         MyMaxHeap<Freelancer> heap = availableByService.get(service);
         if (heap != null) {
-            heap.remove(f);   // Uses index map for O(1) lookup + O(log n) fix
+            heap.remove(f);   // Uses the stored heap index for O(1) lookup + O(log n) fix
         }
     }
 
@@ -538,8 +559,8 @@ public class Main {
     // -------------------- request_job (HEAP + INDEX) --------------------
 
     /**
-     * Uses a per-service max-heap with index map to select top-K freelancers
-     * in O(k log n) time, then auto-employs the best one.
+     * Uses a per-service max-heap to select top-K freelancers in O(k log k) time
+     * without modifying it, then auto-employs the best one.
      */
     public static String request_job(String customerID, String serviceName, int topK) {
         User cu = users.get(customerID);
@@ -553,31 +574,9 @@ public class Main {
             return "no freelancers available";
         }
 
-        // Temporarily popped freelancers (to restore heap later)
-        ArrayList<Freelancer> popped = new ArrayList<>();
-        ArrayList<Freelancer> selected = new ArrayList<>();
-
-        while (!heap.isEmpty() && selected.size() < topK) {
-            Freelancer f = heap.extractMax();  // O(log n) with index-map based heap
-            if (f == null) break;
-            popped.add(f);
-
-            // Skip if customer has blacklisted this freelancer
-            if (customer.isBlacklisted(f.getUserID())) {
-                continue;
-            }
-            // Extra safety: skip if banned or unexpectedly unavailable
-            if (f.isPlatformBanned() || !f.isAvailable()) {
-                continue;
-            }
-
-            selected.add(f);
-        }
-
-        // Restore heap by re-inserting all popped freelancers
-        for (Freelancer f : popped) {
-            heap.insert(f);
-        }
+        // Read-only top-K walk of the heap; blacklisted, banned or unavailable freelancers are skipped
+        ArrayList<Freelancer> selected = heap.topK(topK, f ->
+                !customer.isBlacklisted(f.getUserID()) && !f.isPlatformBanned() && f.isAvailable());
 
         if (selected.isEmpty()) {
             return "no freelancers available";
@@ -633,60 +632,53 @@ public class Main {
         // 1. Apply queued service changes (serviceChangeMap)
         if (!serviceChangeHashTable.isEmpty()) {
 
-            // iterate over internal buckets of MyHashTable
-            Node<String, ServiceChangeInfo>[] buckets = (Node<String, ServiceChangeInfo>[]) serviceChangeHashTable.getTable();
-            int cap = serviceChangeHashTable.getCapacity();
-
-            for (int i = 0; i < cap; i++) {
-                Node<String, ServiceChangeInfo> node = buckets[i];
-                while (node != null) {
-                    String freelancerID = node.key;
-                    ServiceChangeInfo info = node.value;
-
-                    User u = users.get(freelancerID);
-                    if (u instanceof Freelancer) {
-                        Freelancer f = (Freelancer) u;
-                        String oldService = f.getServiceName();
-
-                        // Remove from old per-service list
-                        ArrayList<Freelancer> oldList = serviceToFreelancers.get(oldService);
-                        if (oldList != null) {
-                            for (int idx = 0; idx < oldList.size(); idx++) {
-                                if (oldList.get(idx) == f) {
-                                    int lastIdx = oldList.size() - 1;
-                                    if (idx != lastIdx) {
-                                        oldList.set(idx, oldList.get(lastIdx));
-                                    }
-                                    oldList.remove(lastIdx);
-                                    break;
+            // iterate over the occupied slots of MyHashTable
+            MyHashTable<String, ServiceChangeInfo> changes = serviceChangeHashTable;
+            for (int slot = changes.nextSlot(0); slot >= 0; slot = changes.nextSlot(slot + 1)) {
+                String freelancerID = changes.keyAt(slot);
+                ServiceChangeInfo info = changes.valueAt(slot);
+
+                User u = users.get(freelancerID);
+                if (u instanceof Freelancer) {
+                    Freelancer f = (Freelancer) u;
+                    String oldService = f.getServiceName();
+
+                    // Remove from old per-service list
+                    ArrayList<Freelancer> oldList = serviceToFreelancers.get(oldService);
+                    if (oldList != null) {
+                        for (int idx = 0; idx < oldList.size(); idx++) {
+                            if (oldList.get(idx) == f) {
+                                int lastIdx = oldList.size() - 1;
+                                if (idx != lastIdx) {
+                                    oldList.set(idx, oldList.get(lastIdx));
                                 }
+                                oldList.remove(lastIdx);
+                                break;
                             }
                         }
+                    }
 
-                        // Remove from old heap if still available and not banned
-                        if (f.isAvailable() && !f.isPlatformBanned()) {
-                            removeFromAvailable(f);
-                        }
-
-                        // Apply new service and price
-                        f.setServiceName(info.newService);
-                        f.setPrice(info.newPrice);
+                    // Remove from old heap if still available and not banned
+                    if (f.isAvailable() && !f.isPlatformBanned()) {
+                        removeFromAvailable(f);
+                    }
 
-                        // Add to new per-service list
-                        ArrayList<Freelancer> newList = serviceToFreelancers.get(info.newService);
-                        if (newList == null) {
-                            newList = new ArrayList<>();
-                            serviceToFreelancers.put(info.newService, newList);
-                        }
-                        newList.add(f);
+                    // Apply new service and price
+                    f.setServiceName(info.newService);
+                    f.setPrice(info.newPrice);
 
-                        // Insert into new heap if available and allowed
-                        if (f.isAvailable() && !f.isPlatformBanned()) {
-                            addOrUpdateInAvailable(f);
-                        }
+                    // Add to new per-service list
+                    ArrayList<Freelancer> newList = serviceToFreelancers.get(info.newService);
+                    if (newList == null) {
+                        newList = new ArrayList<>();
+                        serviceToFreelancers.put(info.newService, newList);
                     }
+                    newList.add(f);
 
-                    node = node.next;
+                    // Insert into new heap if available and allowed
+                    if (f.isAvailable() && !f.isPlatformBanned()) {
+                        addOrUpdateInAvailable(f);
+                    }
                 }
             }
 
@@ -698,20 +690,24 @@ public class Main {
             Freelancer f = allFreelancers.get(i);
             int completedThisMonth = f.getCompletedThisMonth();
 
-            if (!f.isBurnedOut()) {
-                if (completedThisMonth >= 5) f.setBurnedOut(true);
-            } else {
-                if (completedThisMonth <= 2) f.setBurnedOut(false);
-            }
+            boolean burnedOut = f.isBurnedOut()
+                    ? completedThisMonth > 2
+                    : completedThisMonth >= 5;
 
             f.setCompletedThisMonth(0);
             f.setCancelledThisMonth(0);
 
-            // Burnout affects composite score, so refresh heap position if applicable
-            if (f.isAvailable() && !f.isPlatformBanned()) {
-                addOrUpdateInAvailable(f);
+            // Burnout affects composite score; only freelancers whose score really changed
+            // are marked, and each affected heap is repaired once below
+            if (burnedOut != f.isBurnedOut()) {
+                int before = f.computeCompositeScore();
+                f.setBurnedOut(burnedOut);
+                if (f.isAvailable() && !f.isPlatformBanned() && f.computeCompositeScore() != before) {
+                    markDirtyInAvailable(f);
+                }
             }
         }
+        rebuildAvailable();
 
         // 3. Recompute loyalty tier for all customers
         for (int i = 0; i < allCustomers.size(); i++) {
@@ -1,22 +1,80 @@
 public class MyHashTable<K, V> {
 
-    // Array of buckets (each bucket is a linked list of nodes)
-    private Node<K, V>[] table;
-    private int capacity;
+    // Open addressing with linear probing: parallel key/value/hash arrays, no node objects.
+    // Capacity is a power of two so the slot is (hash & mask) instead of a '%'.
+    private static final int MIN_CAPACITY = 16;
+
+    // Old-table slots migrated per operation while an incremental resize is running. The
+    // new table is twice as large, so migration ends long before it needs to grow again
+    private static final int MIGRATE_STEP = 8;
+
+    private K[] keys;      // null = empty slot
+    private V[] values;
+    private int[] hashes;  // Spread hash of each key, so probes and resizes never call hashCode again
+    private int mask;
     private int size;
-    private double loadFactor;
+    private int threshold; // Grow when size passes 0.75 * capacity
+
+    // Incremental resize: instead of moving every entry at once, keep the previous arrays
+    // and move a few slots on each operation; lookups check both tables meanwhile
+    private final boolean incremental;
+    private K[] oldKeys;   // null when no resize is running
+    private V[] oldValues;
+    private int[] oldHashes;
+    private int oldMask;
+    private int migrated;  // Old slots below this index are empty
 
     public MyHashTable(int initialCapacity) {
-        this.capacity = initialCapacity;
-        this.table = (Node<K, V>[]) new Node[initialCapacity];
+        this(initialCapacity, false);
+    }
+
+    // incremental = true spreads each resize over the following operations (no long stall)
+    public MyHashTable(int initialCapacity, boolean incremental) {
+        this.incremental = incremental;
+        allocate(tableSizeFor(initialCapacity));
         this.size = 0;
     }
 
-    // Hash function: map key to bucket index in [0, capacity)
-    private int hash(K key) {
+    // Smallest power of two >= n (at least MIN_CAPACITY)
+    private static int tableSizeFor(int n) {
+        int cap = MIN_CAPACITY;
+        while (cap < n && cap < (1 << 30)) cap <<= 1;
+        return cap;
+    }
+
+    private void allocate(int capacity) {
+        keys = (K[]) new Object[capacity];
+        values = (V[]) new Object[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * 0.75);
+    }
+
+    // Hash function: spread the high bits down, since only the low bits pick the slot
+    private static int hash(Object key) {
         int h = key.hashCode();
-        h = h & 0x7fffffff; // clear sign bit to ensure a non-negative value
-        return h % capacity;
+        return h ^ (h >>> 16);
+    }
+
+    // Slot holding key in the current table, or -1
+    private int find(K key) {
+        return find(keys, hashes, mask, key, hash(key));
+    }
+
+    private static <K> int find(K[] keys, int[] hashes, int mask, K key, int h) {
+        int i = h & mask;
+        K k;
+        while ((k = keys[i]) != null) {
+            if (hashes[i] == h && (k == key || k.equals(key))) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Slot holding key in the old table during a resize, or -1
+    private int findOld(K key) {
+        if (oldKeys == null) return -1;
+        return find(oldKeys, oldHashes, oldMask, key, hash(key));
     }
 
     public int size() {
@@ -28,109 +86,179 @@ public class MyHashTable<K, V> {
     }
 
     public void put(K key, V value) {
-        int index = hash(key);
-        Node<K, V> head = table[index];
-
-        Node<K, V> current = head;
-        while (current != null) {
-            if (current.key.equals(key)) {
+        if (oldKeys != null) {
+            migrate(MIGRATE_STEP);
+            int o = findOld(key);
+            if (o >= 0) {
+                // Not migrated yet: update it where it is
+                oldValues[o] = value;
+                return;
+            }
+        }
+        int h = hash(key);
+        int i = h & mask;
+        K k;
+        while ((k = keys[i]) != null) {
+            if (hashes[i] == h && (k == key || k.equals(key))) {
                 // Update existing key
-                current.value = value;
+                values[i] = value;
                 return;
             }
-            current = current.next;
+            i = (i + 1) & mask;
         }
 
-        // Insert new node at the head of the bucket's linked list
-        Node<K, V> newNode = new Node<>(key, value, head);
-        table[index] = newNode;
+        // First empty slot of the probe sequence
+        keys[i] = key;
+        values[i] = value;
+        hashes[i] = h;
         size++;
 
-        // Check load factor and rehash if necessary
-        loadFactor = (double) size / capacity;
-        if (loadFactor >= 0.75) {
+        if (size > threshold) {
             rehash();
         }
     }
 
     public V get(K key) {
-        int index = hash(key);
-        Node<K, V> current = table[index];
-
-        while (current != null) {
-            if (current.key.equals(key))
-                return current.value;
-            current = current.next;
-        }
-
-        return null;
+        if (oldKeys != null) migrate(MIGRATE_STEP);
+        int i = find(key);
+        if (i >= 0) return values[i];
+        int o = findOld(key);
+        return (o < 0) ? null : oldValues[o];
     }
 
     public V remove(K key) {
-        int index = hash(key);
-        Node<K, V> current = table[index];
-        Node<K, V> previous = null;
-
-        while (current != null) {
-            if (current.key.equals(key)) {
-                if (previous == null) {
-                    table[index] = current.next;
-                } else {
-                    previous.next = current.next;
-                }
+        if (oldKeys != null) {
+            migrate(MIGRATE_STEP);
+            int o = findOld(key);
+            if (o >= 0) {
+                V old = oldValues[o];
+                deleteSlot(oldKeys, oldValues, oldHashes, oldMask, o);
                 size--;
-                return current.value;
+                return old;
             }
+        }
+        int i = find(key);
+        if (i < 0) return null;
+        V old = values[i];
+        deleteSlot(keys, values, hashes, mask, i);
+        size--;
+        return old;
+    }
 
-            previous = current;
-            current = current.next;
+    // Backward-shift deletion: pull later entries of the probe run into the hole, so
+    // no tombstones are needed and lookups stop at the first empty slot
+    private static <K, V> void deleteSlot(K[] keys, V[] values, int[] hashes, int mask, int i) {
+        int hole = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == null) break;
+            int home = hashes[j] & mask;
+            // Entry j may move to the hole only if the hole lies between its home and j
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hashes[hole] = hashes[j];
+                hole = j;
+            }
         }
-        return null;
+        keys[hole] = null;
+        values[hole] = null;
     }
 
-    // Rebuild the hash table with a larger capacity
+    // Rebuild the hash table with twice the capacity; stored hashes mean no equals or hashCode
+    // calls. In incremental mode the entries are only handed over to migrate()
     private void rehash() {
-        int oldCapacity = capacity;
-        Node<K, V>[] oldTable = table;
+        if (oldKeys != null) migrate(Integer.MAX_VALUE); // Previous resize still running
+        K[] fromKeys = keys;
+        V[] fromValues = values;
+        int[] fromHashes = hashes;
+        int fromMask = mask;
 
-        capacity = oldCapacity * 2 + 1;
-        table = (Node<K, V>[]) new Node[capacity];
-        size = 0;
+        allocate(fromKeys.length * 2);
+        if (incremental) {
+            oldKeys = fromKeys;
+            oldValues = fromValues;
+            oldHashes = fromHashes;
+            oldMask = fromMask;
+            migrated = 0;
+            return;
+        }
+        for (int s = 0; s < fromKeys.length; s++) {
+            if (fromKeys[s] == null) continue;
+            int i = fromHashes[s] & mask;
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = fromKeys[s];
+            values[i] = fromValues[s];
+            hashes[i] = fromHashes[s];
+        }
+    }
 
-        for (int i = 0; i < oldCapacity; i++) {
-            Node<K, V> current = oldTable[i];
-            while (current != null) {
-                put(current.key, current.value);
-                current = current.next;
+    // Moves up to 'steps' old slots into the current table. An occupied slot is taken out
+    // with the same backward shift as remove, so the old table stays a valid probe table
+    // and the slot is looked at again (a later entry of its run may have moved into it)
+    private void migrate(int steps) {
+        int end = oldKeys.length;
+        while (steps-- > 0 && migrated < end) {
+            K k = oldKeys[migrated];
+            if (k == null) {
+                migrated++;
+                continue;
             }
+            int h = oldHashes[migrated];
+            int i = h & mask;
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = k;
+            values[i] = oldValues[migrated];
+            hashes[i] = h;
+            deleteSlot(oldKeys, oldValues, oldHashes, oldMask, migrated);
+        }
+        if (migrated == end) {
+            oldKeys = null;
+            oldValues = null;
+            oldHashes = null;
         }
     }
 
     public boolean isContainKey(K key) {
-        int index = hash(key);
-        Node<K, V> cur = table[index];
-        while (cur != null) {
-            if (cur.key.equals(key))
-                return true;
-            cur = cur.next;
-        }
-        return false;
+        if (oldKeys != null) migrate(MIGRATE_STEP);
+        return find(key) >= 0 || findOld(key) >= 0;
     }
 
     public int getCapacity() {
-        return capacity;
+        return keys.length;
+    }
+
+    // Iteration over entries (the table must not change meanwhile):
+    // for (int s = t.nextSlot(0); s >= 0; s = t.nextSlot(s + 1)) { t.keyAt(s); t.valueAt(s); }
+
+    // First occupied slot at or after 'from', or -1. Finishes a running resize first
+    public int nextSlot(int from) {
+        if (oldKeys != null) migrate(Integer.MAX_VALUE);
+        for (int i = from; i < keys.length; i++) {
+            if (keys[i] != null) return i;
+        }
+        return -1;
+    }
+
+    public K keyAt(int slot) {
+        return keys[slot];
     }
 
-    public Node<K, V>[] getTable() {
-        return table;
+    public V valueAt(int slot) {
+        return values[slot];
     }
 
     public void clear() {
-        for (int i = 0; i < capacity; i++) {
-            table[i] = null;
+        oldKeys = null;
+        oldValues = null;
+        oldHashes = null;
+        if (size == 0) return;
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = null;
+            values[i] = null;
         }
 
         size = 0;
-        // loadFactor will be recalculated on next put
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,19 @@
-public class MyMaxHeap<T extends Comparable<T>> {
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+// Elements store their own heap position (HeapIndexed), so moving one is a plain int write
+public class MyMaxHeap<T extends Comparable<T> & HeapIndexed> {
 
     private T[] heap;   // 1-based index array (heap[0] is unused)
     private int size;
 
-    private MyHashTable<T, Integer> indexMap;
+    // Elements whose keys changed in place, waiting for rebuildDirty()
+    private final ArrayList<T> dirty = new ArrayList<>();
 
     MyMaxHeap(int capacity) {
         heap = (T[]) new Comparable[capacity + 1]; // index 0 is unused
         size = 0;
-        // Keep indexMap capacity slightly larger than initial heap capacity
-        indexMap = new MyHashTable<>(capacity * 2 + 1);
     }
 
     public boolean isEmpty() {
@@ -28,8 +32,7 @@ public class MyMaxHeap<T extends Comparable<T>> {
         }
         size++;
         heap[size] = value;
-        // Store index of the inserted element
-        indexMap.put(value, size);
+        value.setHeapIndex(size);
         percolateUp(size);
     }
 
@@ -38,15 +41,14 @@ public class MyMaxHeap<T extends Comparable<T>> {
 
         T max = heap[1];
 
-        // Remove max from index map
-        indexMap.remove(max);
+        max.setHeapIndex(0);
 
         heap[1] = heap[size];
         heap[size] = null;
         size--;
 
         if (size > 0 && heap[1] != null) {
-            indexMap.put(heap[1], 1);
+            heap[1].setHeapIndex(1);
             percolateDown(1);
         }
 
@@ -54,6 +56,116 @@ public class MyMaxHeap<T extends Comparable<T>> {
     }
 
 
+    /**
+     * Returns the k largest elements accepted by the filter, largest first, without
+     * changing the heap. Walks the implicit tree from the root with a small frontier
+     * max-heap of array indices: the next largest element is always the best frontier
+     * entry, and popping it exposes its two children. Rejected elements are skipped but
+     * still expanded, so this costs O((k + rejected) log k) instead of k extractMax calls
+     * and k re-inserts.
+     */
+    public ArrayList<T> topK(int k, Predicate<T> filter) {
+        ArrayList<T> selected = new ArrayList<>();
+        if (k <= 0 || size == 0) return selected;
+
+        Frontier frontier = new Frontier(Math.min(2 * k + 2, size + 1));
+        frontier.push(1);
+        while (frontier.size > 0 && selected.size() < k) {
+            int i = frontier.pop();
+            if (filter.test(heap[i])) selected.add(heap[i]);
+            if (2 * i <= size) frontier.push(2 * i);
+            if (2 * i + 1 <= size) frontier.push(2 * i + 1);
+        }
+        return selected;
+    }
+
+    // Max-heap of indices into heap[], ordered by the elements they point to
+    private class Frontier {
+        private int[] items;
+        private int size;
+
+        Frontier(int capacity) {
+            items = new int[Math.max(capacity, 4)];
+        }
+
+        void push(int index) {
+            if (size == items.length) {
+                int[] grown = new int[size * 2];
+                System.arraycopy(items, 0, grown, 0, size);
+                items = grown;
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (heap[index].compareTo(heap[items[parent]]) <= 0) break;
+                items[i] = items[parent];
+                i = parent;
+            }
+            items[i] = index;
+        }
+
+        int pop() {
+            int top = items[0];
+            int last = items[--size];
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[items[child + 1]].compareTo(heap[items[child]]) > 0) {
+                    child++;
+                }
+                if (heap[items[child]].compareTo(heap[last]) <= 0) break;
+                items[i] = items[child];
+                i = child;
+            }
+            items[i] = last;
+            return top;
+        }
+    }
+
+    /**
+     * Records that an element's key changed while it stays in the heap. Heap order is not
+     * valid again until rebuildDirty(), so no other operation may run in between. Lets a
+     * caller change many keys and pay for one repair instead of a remove and an insert each.
+     */
+    public void markDirty(T element) {
+        int index = element.getHeapIndex();
+        if (index >= 1 && index <= size && heap[index] == element) {
+            dirty.add(element);
+        }
+    }
+
+    /**
+     * Restores heap order after markDirty calls. Floyd's bottom-up heapify sifts down every
+     * internal node, O(n). With few dirty elements only their own nodes and their ancestors
+     * can head a subtree that is not a heap, so the same sift-downs run on just those nodes,
+     * in decreasing index order (children before parents): O(k log^2 n) for k elements.
+     */
+    public void rebuildDirty() {
+        int k = dirty.size();
+        if (k == 0) return;
+
+        int depth = 32 - Integer.numberOfLeadingZeros(size);
+        if ((long) k * depth >= size) {
+            for (int i = size / 2; i >= 1; i--) {
+                percolateDown(i);
+            }
+        } else {
+            int[] nodes = new int[k * depth];
+            int n = 0;
+            for (int d = 0; d < k; d++) {
+                for (int i = dirty.get(d).getHeapIndex(); i >= 1; i /= 2) {
+                    nodes[n++] = i;
+                }
+            }
+            Arrays.sort(nodes, 0, n);
+            for (int j = n - 1; j >= 0; j--) {
+                if (j < n - 1 && nodes[j] == nodes[j + 1]) continue; // Shared ancestor
+                percolateDown(nodes[j]);
+            }
+        }
+        dirty.clear();
+    }
+
     private void percolateUp(int i) {
         while (i > 1) {
             int parent = i / 2;
@@ -92,13 +204,8 @@ public class MyMaxHeap<T extends Comparable<T>> {
         heap[i] = heap[j];
         heap[j] = tmp;
 
-        // Update indices in indexMap after swapping
-        if (heap[i] != null) {
-            indexMap.put(heap[i], i);
-        }
-        if (heap[j] != null) {
-            indexMap.put(heap[j], j);
-        }
+        heap[i].setHeapIndex(i);
+        heap[j].setHeapIndex(j);
     }
 
     private void resize() {
@@ -108,20 +215,19 @@ public class MyMaxHeap<T extends Comparable<T>> {
             newArr[i] = heap[i];
         }
         heap = newArr;
-        // Indices stay the same, so indexMap entries remain valid
+        // Indices stay the same, so the elements' stored positions remain valid
     }
 
-    // Remove element using indexMap for O(1 + log n) time
+    // Remove element using its stored position for O(log n) time
     public boolean remove(T element) {
         if (size == 0 || element == null) {
             return false;
         }
 
-        Integer idxObj = indexMap.get(element);
-        if (idxObj == null) {
-            return false;
+        int index = element.getHeapIndex();
+        if (index < 1 || index > size || heap[index] != element) {
+            return false; // Not in this heap
         }
-        int index = idxObj;
 
         // Swap with last element and remove
         T last = heap[size];
@@ -129,11 +235,10 @@ public class MyMaxHeap<T extends Comparable<T>> {
         heap[size] = null;
         size--;
 
-        // Remove deleted element from indexMap
-        indexMap.remove(element);
+        element.setHeapIndex(0);
 
         if (index <= size && heap[index] != null) {
-            indexMap.put(heap[index], index);
+            heap[index].setHeapIndex(index);
 
             // Decide whether to swim up or sink down
             int parent = index / 2;
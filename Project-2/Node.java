@@ -1,11 +0,0 @@
-public class Node<K, V> {
-    K key;
-    V value;
-    Node<K, V> next;
-
-    Node(K key, V value, Node<K, V> next) {
-        this.key = key;
-        this.value = value;
-        this.next = next;
-    }
-}
@@ -1,160 +1,419 @@
-public class AttackAVL extends BaseAVL {
+public class AttackAVL extends BaseAVL implements DeckEngine {
+
+    private final BandPool bands;   // Outer band nodes (with health aggregates)
+    private final HealthAVL inner;  // Operates on every band's inner tree in the card pool
+    private int cardCount = 0;      // Cards across all bands
+
+    // Root-to-band path recorded by ownPathTo, re-aggregated bottom-up by refreshPath
+    private int[] bandPath = new int[8];
+    private int pathLength;
+
+    public AttackAVL(NodePool cards) {
+        super(new BandPool(64));
+        this.bands = (BandPool) pool;
+        this.inner = new HealthAVL(cards);
+        pool.addOwner(this);
+        cards.addOwner(this);
+    }
+
+    // Branch sharing both pools and every current node with 'from' (see fork)
+    private AttackAVL(AttackAVL from) {
+        super(from.pool);
+        this.bands = from.bands;
+        this.inner = new HealthAVL(from.inner.pool);
+        this.root = from.root;
+        this.cardCount = from.cardCount;
+        pool.addOwner(this);
+        inner.pool.addOwner(this);
+    }
+
+    // Persistent branch: both decks keep the current nodes read-only and from now on
+    // path-copy whatever they change, paying O(log n) new nodes per change. O(1): nothing is
+    // copied. Branches share pools, so drive them from a single thread
+    public AttackAVL fork() {
+        freeze();
+        inner.freeze();
+        return new AttackAVL(this);
+    }
 
     @Override
-    protected int compareCards(Card c1, Card c2) {
-        AttackGroupCard g1 = (AttackGroupCard) c1;
-        AttackGroupCard g2 = (AttackGroupCard) c2;
-        return Integer.compare(g1.AofGroup, g2.AofGroup);
-    }
-
-    // First node with A >= given value
-    private Node lowerBoundA(int A) {
-        Node cur = root, ans = null;
-        while (cur != null) {
-            int key = ((AttackGroupCard) cur.element).AofGroup;
-            if (key >= A) {
-                ans = cur;
-                cur = cur.left;
-            } else cur = cur.right;
-        }
-        return ans;
-    }
-
-    // Last node with A < given value
-    private Node strictlyLessA(int A) {
-        Node cur = root, ans = null;
-        while (cur != null) {
-            int key = ((AttackGroupCard) cur.element).AofGroup;
-            if (key < A) {
-                ans = cur;
-                cur = cur.right;
-            } else cur = cur.left;
-        }
-        return ans;
+    public void reclaim() {
+        pool.collectIfDue();
     }
 
-    // Maximum A band node
-    private Node maxA() {
-        Node cur = root;
-        if (cur == null) return null;
-        while (cur.right != null) cur = cur.right;
-        return cur;
+    // Band nodes in the band pool, every band's inner tree in the card pool
+    @Override
+    public void markNodes(NodePool p) {
+        if (p == pool) p.markTree(root);
+        else markInner(p, root);
+    }
+
+    private void markInner(NodePool p, int band) {
+        if (band == NodePool.NIL) return;
+        p.markTree(bands.inner[band]);
+        markInner(p, pool.left[band]);
+        markInner(p, pool.right[band]);
     }
 
-    // Successor band with key > A
-    private Node successorA(int A) {
-        Node cur = root, ans = null;
-        while (cur != null) {
-            int key = ((AttackGroupCard) cur.element).AofGroup;
+    // Band nodes are keyed by their attack value; cards only pass through to compute it
+    @Override
+    protected long keyOf(Card card) {
+        return card.getAcur();
+    }
+
+    // Height plus min/max health and card count over every inner tree in the subtree
+    @Override
+    protected void updateNode(int node) {
+        super.updateNode(node);
+        int l = pool.left[node];
+        int r = pool.right[node];
+        bands.minH[node] = Math.min(bands.bandMinH[node], Math.min(bands.minH[l], bands.minH[r]));
+        bands.maxH[node] = Math.max(bands.bandMaxH[node], Math.max(bands.maxH[l], bands.maxH[r]));
+        bands.cards[node] = inner.sizeOf(bands.inner[node]) + bands.cards[l] + bands.cards[r];
+    }
+
+    // Re-reads a band's own health bounds after its (non-empty) inner tree changed
+    private void refreshBounds(int band) {
+        int top = bands.inner[band];
+        bands.bandMinH[band] = inner.minNode(top).getHcur();
+        bands.bandMaxH[band] = inner.maxNode(top).getHcur();
+    }
+
+    // Re-aggregates the path recorded by the last ownPathTo bottom-up (after the band's
+    // inner tree changed)
+    private void refreshPath() {
+        for (int i = pathLength - 1; i >= 0; i--) updateNode(bandPath[i]);
+    }
+
+    // Band node with exactly A (NIL if none). Shared nodes on the way are copied and
+    // relinked, so the caller may modify the band and its ancestors in place; the path is
+    // recorded for refreshPath
+    private int ownPathTo(int A) {
+        if (bandPath.length < getHeight(root) + 1) bandPath = new int[2 * getHeight(root) + 2];
+        pathLength = 0;
+        root = own(root);
+        int cur = root;
+        while (cur != NodePool.NIL) {
+            if (Metrics.ON) Metrics.bandWalks.increment();
+            bandPath[pathLength++] = cur;
+            long key = pool.key[cur];
+            if (key == A) return cur;
+            int child;
             if (A < key) {
-                ans = cur;
-                cur = cur.left;
-            } else cur = cur.right;
+                child = own(pool.left[cur]);
+                if (child != pool.left[cur]) pool.left[cur] = child;
+            } else {
+                child = own(pool.right[cur]);
+                if (child != pool.right[cur]) pool.right[cur] = child;
+            }
+            cur = child;
         }
-        return ans;
-    }
-
-    // Predecessor band with key < A
-    private Node predecessorA(int A) {
-        Node cur = root, ans = null;
-        while (cur != null) {
-            int key = ((AttackGroupCard) cur.element).AofGroup;
-            if (A > key) {
-                ans = cur;
-                cur = cur.right;
-            } else cur = cur.left;
+        return NodePool.NIL;
+    }
+
+    // Maximum A band node
+    private int maxA() {
+        int cur = root;
+        if (cur == NodePool.NIL) return NodePool.NIL;
+        while (pool.right[cur] != NodePool.NIL) {
+            if (Metrics.ON) Metrics.bandWalks.increment();
+            cur = pool.right[cur];
         }
-        return ans;
+        return cur;
+    }
+
+    // Smallest band with A >= lo holding a card with H > h
+    private int firstBandMaxAbove(int cur, int lo, int h) {
+        if (cur == NodePool.NIL || bands.maxH[cur] <= h) return NodePool.NIL;
+        if (Metrics.ON) Metrics.bandWalks.increment();
+        if (pool.key[cur] < lo) return firstBandMaxAbove(pool.right[cur], lo, h);
+        int ans = firstBandMaxAbove(pool.left[cur], lo, h);
+        if (ans != NodePool.NIL) return ans;
+        if (bands.bandMaxH[cur] > h) return cur;
+        return firstBandMaxAbove(pool.right[cur], lo, h);
+    }
+
+    // Largest band with A < hi holding a card with H > h
+    private int lastBandMaxAbove(int cur, int hi, int h) {
+        if (cur == NodePool.NIL || bands.maxH[cur] <= h) return NodePool.NIL;
+        if (Metrics.ON) Metrics.bandWalks.increment();
+        if (pool.key[cur] >= hi) return lastBandMaxAbove(pool.left[cur], hi, h);
+        int ans = lastBandMaxAbove(pool.right[cur], hi, h);
+        if (ans != NodePool.NIL) return ans;
+        if (bands.bandMaxH[cur] > h) return cur;
+        return lastBandMaxAbove(pool.left[cur], hi, h);
     }
 
-    // Insert a single Card: find its attack band, create if missing
+    // Smallest band with A >= lo holding a card with H <= h
+    private int firstBandMinAtMost(int cur, int lo, int h) {
+        if (cur == NodePool.NIL || bands.minH[cur] > h) return NodePool.NIL;
+        if (Metrics.ON) Metrics.bandWalks.increment();
+        if (pool.key[cur] < lo) return firstBandMinAtMost(pool.right[cur], lo, h);
+        int ans = firstBandMinAtMost(pool.left[cur], lo, h);
+        if (ans != NodePool.NIL) return ans;
+        if (bands.bandMinH[cur] <= h) return cur;
+        return firstBandMinAtMost(pool.right[cur], lo, h);
+    }
+
+    public int cardCount() {
+        return cardCount;
+    }
+
+    // Insert a single Card: find its attack band, create if missing. The band's ancestors
+    // keep health bounds and card counts, so the root path is walked either way
     public void insertCard(Card c) {
         int A = c.getAcur();
-        Node band = lowerBoundA(A);
-        if (band != null && ((AttackGroupCard) band.element).AofGroup == A) {
-            ((AttackGroupCard) band.element).healths.insert(c);
+        // One descent copies and records the path; the aggregates are redone along it
+        int band = ownPathTo(A);
+        if (band != NodePool.NIL) {
+            bands.inner[band] = inner.insertAt(bands.inner[band], c);
+            if (!inner.changed) return; // already present
+            cardCount++;
+            refreshBounds(band);
+            refreshPath();
             return;
         }
-        // Band not found → create a new band node
-        super.insert(new AttackGroupCard(A));
-        // Locate the inserted band and add the card to its inner tree
-        Node newly = lowerBoundA(A);
-        ((AttackGroupCard) newly.element).healths.insert(c);
+        // Band not found → fill a new band node first so it is aggregated when linked
+        band = allocNode(A, null);
+        bands.inner[band] = inner.insertAt(NodePool.NIL, c);
+        refreshBounds(band);
+        root = insertNode(root, band);
+        cardCount++;
     }
 
     public void deleteCard(Card c) {
         int A = c.getAcur();
-        Node band = lowerBoundA(A);
-        if (band == null || ((AttackGroupCard) band.element).AofGroup != A) return;
-        HealthAVL inner = ((AttackGroupCard) band.element).healths;
-        inner.delete(c);
+        int band = ownPathTo(A);
+        if (band == NodePool.NIL) return;
+        int top = inner.deleteAt(bands.inner[band], inner.keyOf(c));
+        if (!inner.changed) return; // not in the deck
+        cardCount--;
+        bands.inner[band] = top;
         // If inner tree becomes empty, remove the band node
-        if (inner.isEmpty()) {
-            super.delete((AttackGroupCard) band.element);
+        if (top == NodePool.NIL) {
+            root = deleteAt(root, A);
+        } else {
+            refreshBounds(band);
+            refreshPath();
+        }
+    }
+
+    // Deck order: attack, then health, then entry order (the order of an in-order walk)
+    private static int compareDeckOrder(Card a, Card b) {
+        if (a.getAcur() != b.getAcur()) return (a.getAcur() < b.getAcur()) ? -1 : 1;
+        if (a.getHcur() != b.getHcur()) return (a.getHcur() < b.getHcur()) ? -1 : 1;
+        return Integer.compare(a.getEntryOrder(), b.getEntryOrder());
+    }
+
+    // Stable bottom-up merge sort of cards[0..n) in deck order
+    private static void sortDeckOrder(Card[] cards, int n) {
+        Card[] src = cards;
+        Card[] dst = new Card[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    dst[k++] = (compareDeckOrder(src[j], src[i]) < 0) ? src[j++] : src[i++];
+                }
+                while (i < mid) dst[k++] = src[i++];
+                while (j < hi) dst[k++] = src[j++];
+            }
+            Card[] t = src;
+            src = dst;
+            dst = t;
         }
+        if (src != cards) System.arraycopy(src, 0, cards, 0, n);
+    }
+
+    // Appends every card in deck order to out starting at pos; returns the next free position
+    public int dumpInOrder(Card[] out, int pos) {
+        return dumpBands(root, out, pos);
+    }
+
+    private int dumpBands(int band, Card[] out, int pos) {
+        if (band == NodePool.NIL) return pos;
+        pos = dumpBands(pool.left[band], out, pos);
+        pos = inner.dumpInOrder(bands.inner[band], out, pos);
+        return dumpBands(pool.right[band], out, pos);
+    }
+
+    // Returns every band and inner node of the deck to the pools. Below a shared node
+    // everything is shared (changes copy whole root paths), so the walk stops there
+    private void releaseAll(int band) {
+        if (band == NodePool.NIL || !owns(band)) return;
+        releaseAll(pool.left[band]);
+        releaseAll(pool.right[band]);
+        inner.releaseTree(bands.inner[band]);
+        pool.release(band);
+    }
+
+    // Bulk insert: sorts the new cards, merges them with the current deck and rebuilds
+    // both levels from the sorted run in O(n). The resulting deck holds exactly the cards
+    // and order one-by-one inserts would produce (only the tree shapes differ).
+    public void bulkInsert(Card[] cards, int n) {
+        if (n == 0) return;
+        sortDeckOrder(cards, n);
+
+        int m = cardCount;
+        Card[] old = new Card[m];
+        dumpInOrder(old, 0);
+        releaseAll(root);
+
+        // Merge the current deck (already in deck order) with the sorted new cards. A card
+        // whose (A, H, entryOrder) equals an earlier one is skipped, as insertNode would
+        Card[] all = new Card[m + n];
+        int i = 0, j = 0, k = 0;
+        while (i < m || j < n) {
+            Card next;
+            if (j == n || (i < m && compareDeckOrder(old[i], cards[j]) <= 0)) next = old[i++];
+            else next = cards[j++];
+            if (k > 0 && compareDeckOrder(all[k - 1], next) == 0) continue;
+            all[k++] = next;
+        }
+        root = buildFromSorted(all, k);
+        cardCount = k;
+    }
+
+    // Replaces the deck with cards already in deck order and free of duplicates (a previous
+    // dumpInOrder), building both levels in O(n) without comparisons
+    public void loadSorted(Card[] sorted, int n) {
+        releaseAll(root);
+        root = buildFromSorted(sorted, n);
+        cardCount = n;
+    }
+
+    // Builds the two-level structure from cards sorted in deck order; returns the band root
+    private int buildFromSorted(Card[] sorted, int total) {
+        int[] cardNodes = new int[total];
+        int[] bandNodes = new int[total];
+        int bandCount = 0;
+        int i = 0;
+        while (i < total) {
+            // One run of equal attack becomes one band
+            int A = sorted[i].getAcur();
+            int j = i;
+            while (j < total && sorted[j].getAcur() == A) {
+                cardNodes[j] = inner.allocNode(inner.keyOf(sorted[j]), sorted[j]);
+                j++;
+            }
+            int band = allocNode(A, null);
+            bands.inner[band] = inner.buildBalanced(cardNodes, i, j - 1);
+            bands.bandMinH[band] = sorted[i].getHcur();
+            bands.bandMaxH[band] = sorted[j - 1].getHcur();
+            bandNodes[bandCount++] = band;
+            i = j;
+        }
+        return buildBalanced(bandNodes, 0, bandCount - 1);
     }
 
     // P1: A >= hp AND H > att → choose min A band; in that band pick min H with H > att
     public Card findForPriority1(int att, int hp) {
-        Node cur = lowerBoundA(hp);
-        while (cur != null) {
-            HealthAVL inner = ((AttackGroupCard) cur.element).healths;
-            Card pick = inner.minStrictGreaterH(att);
-            if (pick != null) return pick;
-            cur = successorA(((AttackGroupCard) cur.element).AofGroup);
-        }
-        return null;
+        int band = firstBandMaxAbove(root, hp, att);
+        if (band == NodePool.NIL) return null;
+        return inner.minStrictGreaterH(bands.inner[band], att);
     }
 
-    // P2: A < hp AND H > att → iterate from max A band downward; in band pick min H > att
+    // P2: A < hp AND H > att → choose max A band; in that band pick min H > att
     public Card findForPriority2(int att, int hp) {
-        Node cur = strictlyLessA(hp);
-        while (cur != null) {
-            HealthAVL inner = ((AttackGroupCard) cur.element).healths;
-            Card pick = inner.minStrictGreaterH(att);
-            if (pick != null) return pick;
-            cur = predecessorA(((AttackGroupCard) cur.element).AofGroup);
-        }
-        return null;
+        int band = lastBandMaxAbove(root, hp, att);
+        if (band == NodePool.NIL) return null;
+        return inner.minStrictGreaterH(bands.inner[band], att);
     }
 
-    // P3: A >= hp AND H <= att → choose min A band; if that band's min H <= att, take it
+    // P3: A >= hp AND H <= att → choose min A band whose min H <= att, take that card
     public Card findForPriority3(int att, int hp) {
-        Node cur = lowerBoundA(hp);
-        while (cur != null) {
-            HealthAVL inner = ((AttackGroupCard) cur.element).healths;
-            Card m = inner.minNode();
-            if (m != null && m.getHcur() <= att) return m;
-            cur = successorA(((AttackGroupCard) cur.element).AofGroup);
-        }
-        return null;
+        int band = firstBandMinAtMost(root, hp, att);
+        if (band == NodePool.NIL) return null;
+        return inner.minNode(bands.inner[band]);
     }
 
     // P4: Pick max A band; then take that band's minimum-H card
     public Card findForPriority4(int att, int hp) {
-        Node mx = maxA();
-        if (mx == null) return null;
-        return ((AttackGroupCard) mx.element).healths.minNode();
+        int mx = maxA();
+        if (mx == NodePool.NIL) return null;
+        return inner.minNode(bands.inner[mx]);
+    }
+
+    // Steal: A > att AND H > hp → choose min A band; in that band pick min H > hp
+    public Card findForSteal(int att, int hp) {
+        if (att == Integer.MAX_VALUE) return null;
+        int band = firstBandMaxAbove(root, att + 1, hp);
+        if (band == NodePool.NIL) return null;
+        return inner.minStrictGreaterH(bands.inner[band], hp);
+    }
+
+    public int bandCount() {
+        return sizeOf(root);
+    }
+
+    public int height() {
+        return getHeight(root);
     }
 
+    // Rank 1 is the strongest card, i.e. the last one in deck order. Counts the cards of
+    // higher bands while descending to band A, then the stronger cards inside it
     @Override
-    public void insert(Card c) {
-        insertCard(c);
+    public int rankOf(Card c) {
+        int A = c.getAcur();
+        int cur = root, stronger = 0;
+        while (cur != NodePool.NIL) {
+            long key = pool.key[cur];
+            if (A < key) {
+                stronger += inner.sizeOf(bands.inner[cur]) + bands.cards[pool.right[cur]];
+                cur = pool.left[cur];
+            } else if (A > key) {
+                cur = pool.right[cur];
+            } else {
+                int top = bands.inner[cur];
+                if (!inner.contains(top, c)) return -1;
+                return 1 + stronger + bands.cards[pool.right[cur]] + inner.countGreater(top, inner.keyOf(c));
+            }
+        }
+        return -1;
     }
 
+    // Walks from the strongest end: right subtree, the band itself (strongest card last), left
     @Override
-    public void delete(Card c) {
-        deleteCard(c);
+    public Card kthStrongest(int k) {
+        if (k < 1 || k > cardCount) return null;
+        int cur = root;
+        while (true) {
+            int right = bands.cards[pool.right[cur]];
+            if (k <= right) {
+                cur = pool.right[cur];
+                continue;
+            }
+            k -= right;
+            int top = bands.inner[cur];
+            int here = inner.sizeOf(top);
+            if (k <= here) return inner.pool.element[inner.select(top, here - k)];
+            k -= here;
+            cur = pool.left[cur];
+        }
     }
 
-    public Node firstBandGreaterThan(int a){   // First band with A > a
-        return successorA(a);
+    // Adds the left subtree and the band for every band below att on the search path
+    @Override
+    public int countAttackBelow(int att) {
+        int cur = root, count = 0;
+        while (cur != NodePool.NIL) {
+            if (pool.key[cur] < att) {
+                count += bands.cards[pool.left[cur]] + inner.sizeOf(bands.inner[cur]);
+                cur = pool.right[cur];
+            } else cur = pool.left[cur];
+        }
+        return count;
     }
-    public Node nextBand(Node band){           // Next band in ascending A
-        if (band == null) return null;
-        return successorA(((AttackGroupCard)band.element).AofGroup);
+
+    @Override
+    public void insert(Card c) {
+        insertCard(c);
     }
-    public HealthAVL innerOf(Node band){
-        return (band==null) ? null : ((AttackGroupCard)band.element).healths;
+
+    @Override
+    public void delete(Card c) {
+        deleteCard(c);
     }
-}
\ No newline at end of file
+}
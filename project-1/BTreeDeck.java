@@ -0,0 +1,663 @@
+/**
+ * Deck engine with a B+-tree band index: wide nodes of int attack keys, linked leaves.
+ *
+ * A leaf entry is one attack band (A, root of its HealthAVL, the band's min/max health),
+ * an internal entry is (separator A, child node, min/max health over the child). All
+ * columns live in flat arrays, a node's entries being one contiguous run of STRIDE slots,
+ * so a search step is a scan of adjacent ints instead of a pointer chase per level.
+ * Leaves are chained in attack order for dumps and the maximum-A band is the tail entry.
+ *
+ * Separators: keys[i] is a lower bound of child i and (i >= 1) an upper bound (exclusive)
+ * of child i - 1; keys[0] of an internal node only keeps the keys sorted. Inserts split full
+ * nodes in halves; a delete that leaves a node under half full borrows an entry from a
+ * sibling, or merges the two when the sibling has none to spare, so the index stays
+ * O(log_B bands) deep and compact without rebuilds.
+ *
+ * The priority and steal queries descend by the per-entry health aggregates instead of
+ * stepping along the leaf chain: a walk over consecutive leaves costs O(bands / B) leaves
+ * when the matching band is far from the start, the aggregates skip a whole subtree per
+ * entry and keep every query O(B log_B bands).
+ *
+ * fork() copies the band index (O(bands)) and shares the inner trees persistently. The index
+ * is the one structure not path-copied: a copied leaf would need new links from both of its
+ * neighbours, which would have to be copied in turn, and so on along the whole chain. The
+ * avl and segment decks fork in O(1); this engine trades that for the linked leaves.
+ */
+public class BTreeDeck implements DeckEngine {
+
+    private static final int NIL = 0;          // Node 0 is never used
+    private static final int B = 32;           // Max entries per node
+    private static final int STRIDE = B + 1;   // Room for one overflow entry before a split
+    private static final int MIN = B / 2;      // Fewest entries of a non-root node after a delete
+    private static final int BUILD_FILL = 24;  // Most entries per node when built from sorted bands
+
+    // Per-node columns
+    private int[] count;
+    private boolean[] leaf;
+    private int[] next, prev;   // Leaf chain (leaves only)
+
+    // Per-slot columns, node n owning slots [n * STRIDE, n * STRIDE + count[n])
+    private int[] keys;
+    private int[] child;        // Internal: child node. Leaf: inner health tree root
+    private int[] minH, maxH;   // Internal: aggregates of the child. Leaf: band bounds
+    private int[] cards;        // Cards below the entry (internal: child total, leaf: band size)
+
+    private int nodeTop = 1;          // Next never-used node
+    private int freeHead = NIL;       // Released nodes, chained through next[]
+
+    private int root, head, tail;
+    private int bandCount = 0;
+    private int cardCount = 0;
+
+    private final HealthAVL inner;  // Operates on every band's inner tree in the card pool
+
+    // Descent path of the last update: internal nodes and the entry taken in each
+    private int[] pathNode = new int[16];
+    private int[] pathSlot = new int[16];
+    private int depth;
+
+    public BTreeDeck(NodePool cards) {
+        this.inner = new HealthAVL(cards);
+        int cap = 16;
+        count = new int[cap];
+        leaf = new boolean[cap];
+        next = new int[cap];
+        prev = new int[cap];
+        keys = new int[cap * STRIDE];
+        child = new int[cap * STRIDE];
+        minH = new int[cap * STRIDE];
+        maxH = new int[cap * STRIDE];
+        this.cards = new int[cap * STRIDE];
+        root = newNode(true);
+        head = tail = root;
+        cards.addOwner(this);
+    }
+
+    // Copy of 'from' sharing its inner trees (see fork)
+    private BTreeDeck(BTreeDeck from) {
+        this.inner = new HealthAVL(from.inner.pool);
+        count = from.count.clone();
+        leaf = from.leaf.clone();
+        next = from.next.clone();
+        prev = from.prev.clone();
+        keys = from.keys.clone();
+        child = from.child.clone();
+        minH = from.minH.clone();
+        maxH = from.maxH.clone();
+        cards = from.cards.clone();
+        nodeTop = from.nodeTop;
+        freeHead = from.freeHead;
+        root = from.root;
+        head = from.head;
+        tail = from.tail;
+        bandCount = from.bandCount;
+        cardCount = from.cardCount;
+        inner.pool.addOwner(this);
+    }
+
+    @Override
+    public BTreeDeck fork() {
+        inner.freeze();
+        return new BTreeDeck(this);
+    }
+
+    // The index arrays are copied on fork, never shared: every node is freed eagerly
+    @Override
+    public void reclaim() {
+    }
+
+    // Inner trees of every band, in the card pool
+    @Override
+    public void markNodes(NodePool p) {
+        if (bandCount == 0) return;
+        for (int n = head; n != NIL; n = next[n]) {
+            int base = n * STRIDE;
+            for (int i = 0; i < count[n]; i++) p.markTree(child[base + i]);
+        }
+    }
+
+    // ---- Node pool ----
+
+    private int newNode(boolean isLeaf) {
+        int n;
+        if (freeHead != NIL) {
+            n = freeHead;
+            freeHead = next[n];
+        } else {
+            if (nodeTop == count.length) grow(count.length * 2);
+            n = nodeTop++;
+        }
+        count[n] = 0;
+        leaf[n] = isLeaf;
+        next[n] = NIL;
+        prev[n] = NIL;
+        return n;
+    }
+
+    private void freeNode(int n) {
+        next[n] = freeHead;
+        freeHead = n;
+    }
+
+    private void grow(int cap) {
+        count = NodePool.copyOf(count, cap);
+        boolean[] l = new boolean[cap];
+        System.arraycopy(leaf, 0, l, 0, leaf.length);
+        leaf = l;
+        next = NodePool.copyOf(next, cap);
+        prev = NodePool.copyOf(prev, cap);
+        keys = NodePool.copyOf(keys, cap * STRIDE);
+        child = NodePool.copyOf(child, cap * STRIDE);
+        minH = NodePool.copyOf(minH, cap * STRIDE);
+        maxH = NodePool.copyOf(maxH, cap * STRIDE);
+        cards = NodePool.copyOf(cards, cap * STRIDE);
+    }
+
+    // ---- Searching inside a node ----
+
+    // First entry of node n with key >= k (count[n] if none)
+    private int lowerBound(int n, long k) {
+        int base = n * STRIDE;
+        int lo = 0, hi = count[n];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[base + mid] < k) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Child of internal node n whose range holds k
+    private int route(int n, long k) {
+        int i = lowerBound(n, k);
+        if (i < count[n] && keys[n * STRIDE + i] == k) return i;
+        return (i == 0) ? 0 : i - 1;
+    }
+
+    // Descends to the leaf for A, recording the path
+    private int descend(int A) {
+        depth = 0;
+        int n = root;
+        while (!leaf[n]) {
+            int slot = route(n, A);
+            if (depth == pathNode.length) {
+                pathNode = NodePool.copyOf(pathNode, depth * 2);
+                pathSlot = NodePool.copyOf(pathSlot, depth * 2);
+            }
+            pathNode[depth] = n;
+            pathSlot[depth] = slot;
+            depth++;
+            n = child[n * STRIDE + slot];
+        }
+        return n;
+    }
+
+    // ---- Entries and aggregates ----
+
+    private void insertEntry(int n, int i, int key, int ch, int mn, int mx, int cn) {
+        int base = n * STRIDE;
+        int move = count[n] - i;
+        System.arraycopy(keys, base + i, keys, base + i + 1, move);
+        System.arraycopy(child, base + i, child, base + i + 1, move);
+        System.arraycopy(minH, base + i, minH, base + i + 1, move);
+        System.arraycopy(maxH, base + i, maxH, base + i + 1, move);
+        System.arraycopy(cards, base + i, cards, base + i + 1, move);
+        keys[base + i] = key;
+        child[base + i] = ch;
+        minH[base + i] = mn;
+        maxH[base + i] = mx;
+        cards[base + i] = cn;
+        count[n]++;
+    }
+
+    private void removeEntry(int n, int i) {
+        int base = n * STRIDE;
+        int move = count[n] - i - 1;
+        System.arraycopy(keys, base + i + 1, keys, base + i, move);
+        System.arraycopy(child, base + i + 1, child, base + i, move);
+        System.arraycopy(minH, base + i + 1, minH, base + i, move);
+        System.arraycopy(maxH, base + i + 1, maxH, base + i, move);
+        System.arraycopy(cards, base + i + 1, cards, base + i, move);
+        count[n]--;
+    }
+
+    // Moves entry i of node 'from' to position j of node 'to'
+    private void moveEntry(int from, int i, int to, int j) {
+        int s = from * STRIDE + i;
+        insertEntry(to, j, keys[s], child[s], minH[s], maxH[s], cards[s]);
+        removeEntry(from, i);
+    }
+
+    private int nodeMin(int n) {
+        int base = n * STRIDE, m = Integer.MAX_VALUE;
+        for (int i = 0; i < count[n]; i++) m = Math.min(m, minH[base + i]);
+        return m;
+    }
+
+    private int nodeMax(int n) {
+        int base = n * STRIDE, m = Integer.MIN_VALUE;
+        for (int i = 0; i < count[n]; i++) m = Math.max(m, maxH[base + i]);
+        return m;
+    }
+
+    private int nodeCards(int n) {
+        int base = n * STRIDE, sum = 0;
+        for (int i = 0; i < count[n]; i++) sum += cards[base + i];
+        return sum;
+    }
+
+    // Re-reads a band's health bounds and size after its (non-empty) inner tree changed
+    private void refreshBand(int slot) {
+        int top = child[slot];
+        minH[slot] = inner.minNode(top).getHcur();
+        maxH[slot] = inner.maxNode(top).getHcur();
+        cards[slot] = inner.sizeOf(top);
+    }
+
+    // Re-aggregates an internal entry from its child node
+    private void refreshEntry(int slot) {
+        int c = child[slot];
+        minH[slot] = nodeMin(c);
+        maxH[slot] = nodeMax(c);
+        cards[slot] = nodeCards(c);
+    }
+
+    // Re-aggregates the recorded path from level 'from' (exclusive) up to the root
+    private void refreshPath(int from) {
+        for (int d = from - 1; d >= 0; d--) {
+            refreshEntry(pathNode[d] * STRIDE + pathSlot[d]);
+        }
+    }
+
+    // Splits overflowing nodes bottom-up, starting with node n at path level d
+    private void splitUp(int n, int d) {
+        while (count[n] > B) {
+            int right = newNode(leaf[n]);
+            int half = count[n] / 2;
+            int move = count[n] - half;
+            int from = n * STRIDE + half, to = right * STRIDE;
+            System.arraycopy(keys, from, keys, to, move);
+            System.arraycopy(child, from, child, to, move);
+            System.arraycopy(minH, from, minH, to, move);
+            System.arraycopy(maxH, from, maxH, to, move);
+            System.arraycopy(cards, from, cards, to, move);
+            count[n] = half;
+            count[right] = move;
+            if (leaf[n]) {
+                next[right] = next[n];
+                prev[right] = n;
+                if (next[n] != NIL) prev[next[n]] = right;
+                else tail = right;
+                next[n] = right;
+            }
+            int sep = keys[right * STRIDE];
+            if (d == 0) {
+                // Root split: grow a level
+                int newRoot = newNode(false);
+                insertEntry(newRoot, 0, keys[n * STRIDE], n, nodeMin(n), nodeMax(n), nodeCards(n));
+                insertEntry(newRoot, 1, sep, right, nodeMin(right), nodeMax(right), nodeCards(right));
+                root = newRoot;
+                return;
+            }
+            int parent = pathNode[d - 1];
+            int slot = pathSlot[d - 1];
+            int ps = parent * STRIDE + slot;
+            minH[ps] = nodeMin(n);
+            maxH[ps] = nodeMax(n);
+            cards[ps] = nodeCards(n);
+            insertEntry(parent, slot + 1, sep, right, nodeMin(right), nodeMax(right), nodeCards(right));
+            n = parent;
+            d--;
+        }
+    }
+
+    // ---- Updates ----
+
+    @Override
+    public void insert(Card c) {
+        int A = c.getAcur();
+        int lf = descend(A);
+        // A new minimum lowers the first separators, so a later split key stays above them
+        for (int d = 0; d < depth; d++) {
+            int first = pathNode[d] * STRIDE;
+            if (pathSlot[d] == 0 && keys[first] > A) keys[first] = A;
+        }
+        int i = lowerBound(lf, A);
+        int slot = lf * STRIDE + i;
+        if (i < count[lf] && keys[slot] == A) {
+            child[slot] = inner.insertAt(child[slot], c);
+            if (!inner.changed) return; // already present
+            refreshBand(slot);
+        } else {
+            int top = inner.insertAt(NodePool.NIL, c);
+            insertEntry(lf, i, A, top, c.getHcur(), c.getHcur(), 1);
+            bandCount++;
+        }
+        cardCount++;
+        refreshPath(depth);
+        splitUp(lf, depth);
+    }
+
+    @Override
+    public void delete(Card c) {
+        int A = c.getAcur();
+        int lf = descend(A);
+        int i = lowerBound(lf, A);
+        int slot = lf * STRIDE + i;
+        if (i == count[lf] || keys[slot] != A) return;
+        child[slot] = inner.deleteAt(child[slot], inner.keyOf(c));
+        if (!inner.changed) return;
+        cardCount--;
+        if (child[slot] != NodePool.NIL) {
+            refreshBand(slot);
+            refreshPath(depth);
+            return;
+        }
+
+        // Band emptied: drop its entry, then refill nodes left under half full bottom-up
+        bandCount--;
+        removeEntry(lf, i);
+        int n = lf, d = depth;
+        while (d > 0 && count[n] < MIN) {
+            int parent = pathNode[d - 1];
+            int pBase = parent * STRIDE;
+            // n and its left sibling, or its right one if n is the first child
+            int l = Math.max(pathSlot[d - 1] - 1, 0);
+            int left = child[pBase + l], right = child[pBase + l + 1];
+            int sibling = (left == n) ? right : left;
+            d--;
+            if (count[sibling] > MIN) {
+                // Borrow the sibling's entry next to n; the first key of right is the new separator
+                if (sibling == left) moveEntry(left, count[left] - 1, right, 0);
+                else moveEntry(right, 0, left, count[left]);
+                keys[pBase + l + 1] = keys[right * STRIDE];
+                refreshEntry(pBase + l);
+                refreshEntry(pBase + l + 1);
+                break;
+            }
+            // Merge right into left: together they hold at most 2 * MIN - 1 <= B entries
+            int move = count[right];
+            int from = right * STRIDE, to = left * STRIDE + count[left];
+            System.arraycopy(keys, from, keys, to, move);
+            System.arraycopy(child, from, child, to, move);
+            System.arraycopy(minH, from, minH, to, move);
+            System.arraycopy(maxH, from, maxH, to, move);
+            System.arraycopy(cards, from, cards, to, move);
+            count[left] += move;
+            if (leaf[right]) unlinkLeaf(right);
+            freeNode(right);
+            removeEntry(parent, l + 1);
+            refreshEntry(pBase + l);
+            n = parent;
+        }
+        refreshPath(d);
+        // A root with a single child is an unneeded level
+        while (!leaf[root] && count[root] == 1) {
+            int only = child[root * STRIDE];
+            freeNode(root);
+            root = only;
+        }
+    }
+
+    private void unlinkLeaf(int n) {
+        if (prev[n] != NIL) next[prev[n]] = next[n];
+        else head = next[n];
+        if (next[n] != NIL) prev[next[n]] = prev[n];
+        else tail = prev[n];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bandCount == 0;
+    }
+
+    @Override
+    public int cardCount() {
+        return cardCount;
+    }
+
+    @Override
+    public int bandCount() {
+        return bandCount;
+    }
+
+    @Override
+    public int height() {
+        int levels = 1;
+        for (int n = root; !leaf[n]; n = child[n * STRIDE]) levels++;
+        return levels;
+    }
+
+    @Override
+    public void bulkInsert(Card[] cards, int n) {
+        for (int i = 0; i < n; i++) insert(cards[i]);
+    }
+
+    // ---- Bulk build ----
+
+    @Override
+    public int dumpInOrder(Card[] out, int pos) {
+        if (bandCount == 0) return pos;
+        for (int n = head; n != NIL; n = next[n]) {
+            int base = n * STRIDE;
+            for (int i = 0; i < count[n]; i++) pos = inner.dumpInOrder(child[base + i], out, pos);
+        }
+        return pos;
+    }
+
+    @Override
+    public void loadSorted(Card[] sorted, int n) {
+        for (int lf = head; lf != NIL && bandCount > 0; lf = next[lf]) {
+            int base = lf * STRIDE;
+            for (int i = 0; i < count[lf]; i++) inner.releaseTree(child[base + i]);
+        }
+        int[] bandKeys = new int[n];
+        int[] bandRoots = new int[n];
+        int[] bandMin = new int[n];
+        int[] bandMax = new int[n];
+        int[] cardNodes = new int[n];
+        int bands = 0;
+        int i = 0;
+        while (i < n) {
+            int A = sorted[i].getAcur();
+            int j = i;
+            while (j < n && sorted[j].getAcur() == A) {
+                cardNodes[j] = inner.allocNode(inner.keyOf(sorted[j]), sorted[j]);
+                j++;
+            }
+            bandKeys[bands] = A;
+            bandRoots[bands] = inner.buildBalanced(cardNodes, i, j - 1);
+            bandMin[bands] = sorted[i].getHcur();
+            bandMax[bands] = sorted[j - 1].getHcur();
+            bands++;
+            i = j;
+        }
+        build(bandKeys, bandRoots, bandMin, bandMax, bands);
+        cardCount = n;
+    }
+
+    // Start of the part-th of 'parts' even runs over n entries: with parts = ceil(n / BUILD_FILL)
+    // every run but a lone one holds more than BUILD_FILL / 2 entries, so each node has a sibling
+    // and room to lend or merge on later deletes
+    private static int runStart(int part, int parts, int n) {
+        return (int) ((long) part * n / parts);
+    }
+
+    // Replaces every node by a fresh index over the given bands (sorted by A), bottom-up
+    private void build(int[] bandKeys, int[] bandRoots, int[] bandMin, int[] bandMax, int bands) {
+        nodeTop = 1;
+        freeHead = NIL;
+        bandCount = bands;
+
+        // Leaves, chained in order
+        int levelSize = Math.max(1, (bands + BUILD_FILL - 1) / BUILD_FILL);
+        int[] level = new int[levelSize];
+        int prevLeaf = NIL;
+        for (int l = 0; l < levelSize; l++) {
+            int lf = newNode(true);
+            int from = runStart(l, levelSize, bands), to = runStart(l + 1, levelSize, bands);
+            for (int i = from; i < to; i++) {
+                insertEntry(lf, i - from, bandKeys[i], bandRoots[i], bandMin[i], bandMax[i],
+                        inner.sizeOf(bandRoots[i]));
+            }
+            prev[lf] = prevLeaf;
+            if (prevLeaf != NIL) next[prevLeaf] = lf;
+            prevLeaf = lf;
+            level[l] = lf;
+        }
+        head = level[0];
+        tail = prevLeaf;
+
+        // Internal levels until a single root is left
+        while (levelSize > 1) {
+            int upperSize = (levelSize + BUILD_FILL - 1) / BUILD_FILL;
+            int[] upper = new int[upperSize];
+            for (int u = 0; u < upperSize; u++) {
+                int node = newNode(false);
+                int from = runStart(u, upperSize, levelSize), to = runStart(u + 1, upperSize, levelSize);
+                for (int i = from; i < to; i++) {
+                    int c = level[i];
+                    insertEntry(node, i - from, keys[c * STRIDE], c, nodeMin(c), nodeMax(c), nodeCards(c));
+                }
+                upper[u] = node;
+            }
+            level = upper;
+            levelSize = upperSize;
+        }
+        root = level[0];
+    }
+
+    // ---- Queries ----
+
+    // Cards with attack below att: whole entries left of the descent, then the leaf prefix
+    @Override
+    public int countAttackBelow(int att) {
+        int n = root, below = 0;
+        while (!leaf[n]) {
+            int slot = route(n, att);
+            int base = n * STRIDE;
+            for (int i = 0; i < slot; i++) below += cards[base + i];
+            n = child[base + slot];
+        }
+        int base = n * STRIDE, end = lowerBound(n, att);
+        for (int i = 0; i < end; i++) below += cards[base + i];
+        return below;
+    }
+
+    // Cards after c in deck order, plus one (-1 if c is not in the deck)
+    @Override
+    public int rankOf(Card c) {
+        int A = c.getAcur();
+        int lf = descend(A);
+        int i = lowerBound(lf, A);
+        int slot = lf * STRIDE + i;
+        if (i == count[lf] || keys[slot] != A || !inner.contains(child[slot], c)) return -1;
+        int stronger = cardCount - countAttackBelow(A) - cards[slot]
+                + inner.countGreater(child[slot], inner.keyOf(c));
+        return 1 + stronger;
+    }
+
+    // The (cardCount - k)-th card in deck order, found by skipping whole entries per level
+    @Override
+    public Card kthStrongest(int k) {
+        if (k < 1 || k > cardCount) return null;
+        int index = cardCount - k;
+        int n = root;
+        while (true) {
+            int base = n * STRIDE, i = 0;
+            while (index >= cards[base + i]) index -= cards[base + i++];
+            if (leaf[n]) return inner.pool.element[inner.select(child[base + i], index)];
+            n = child[base + i];
+        }
+    }
+
+    // Leftmost band with A >= lo holding some H > h; returns its slot or -1
+    private int firstMaxAbove(int n, long lo, int h) {
+        int base = n * STRIDE, c = count[n];
+        if (leaf[n]) {
+            for (int i = lowerBound(n, lo); i < c; i++) {
+                if (maxH[base + i] > h) return base + i;
+            }
+            return -1;
+        }
+        for (int i = route(n, lo); i < c; i++) {
+            if (maxH[base + i] > h) {
+                int ans = firstMaxAbove(child[base + i], lo, h);
+                if (ans >= 0) return ans;
+            }
+        }
+        return -1;
+    }
+
+    // Rightmost band with A < hi holding some H > h; returns its slot or -1
+    private int lastMaxAbove(int n, long hi, int h) {
+        int base = n * STRIDE;
+        int i = lowerBound(n, hi) - 1;
+        if (leaf[n]) {
+            for (; i >= 0; i--) {
+                if (maxH[base + i] > h) return base + i;
+            }
+            return -1;
+        }
+        for (i = Math.max(i, 0); i >= 0; i--) {
+            if (maxH[base + i] > h) {
+                int ans = lastMaxAbove(child[base + i], hi, h);
+                if (ans >= 0) return ans;
+            }
+        }
+        return -1;
+    }
+
+    // Leftmost band with A >= lo holding some H <= h; returns its slot or -1
+    private int firstMinAtMost(int n, long lo, int h) {
+        int base = n * STRIDE, c = count[n];
+        if (leaf[n]) {
+            for (int i = lowerBound(n, lo); i < c; i++) {
+                if (minH[base + i] <= h) return base + i;
+            }
+            return -1;
+        }
+        for (int i = route(n, lo); i < c; i++) {
+            if (minH[base + i] <= h) {
+                int ans = firstMinAtMost(child[base + i], lo, h);
+                if (ans >= 0) return ans;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Card findForPriority1(int att, int hp) {
+        int slot = firstMaxAbove(root, hp, att);
+        if (slot < 0) return null;
+        return inner.minStrictGreaterH(child[slot], att);
+    }
+
+    @Override
+    public Card findForPriority2(int att, int hp) {
+        int slot = lastMaxAbove(root, hp, att);
+        if (slot < 0) return null;
+        return inner.minStrictGreaterH(child[slot], att);
+    }
+
+    @Override
+    public Card findForPriority3(int att, int hp) {
+        int slot = firstMinAtMost(root, hp, att);
+        if (slot < 0) return null;
+        return inner.minNode(child[slot]);
+    }
+
+    // Maximum A band is the last entry of the tail leaf
+    @Override
+    public Card findForPriority4(int att, int hp) {
+        if (bandCount == 0) return null;
+        return inner.minNode(child[tail * STRIDE + count[tail] - 1]);
+    }
+
+    @Override
+    public Card findForSteal(int att, int hp) {
+        int slot = firstMaxAbove(root, att + 1L, hp);
+        if (slot < 0) return null;
+        return inner.minStrictGreaterH(child[slot], hp);
+    }
+}
@@ -0,0 +1,52 @@
+public class BandPool extends NodePool {
+
+    // Per-band payload: root of the band's inner health tree and its own health bounds
+    public int[] inner;
+    public int[] bandMinH;
+    public int[] bandMaxH;
+
+    // Subtree aggregates over the inner health trees of every band below a node
+    public int[] minH;
+    public int[] maxH;
+    public int[] cards;   // Cards in every band below a node (0 for NIL)
+
+    public BandPool(int capacity) {
+        super(capacity);
+        inner = new int[left.length];
+        bandMinH = new int[left.length];
+        bandMaxH = new int[left.length];
+        minH = new int[left.length];
+        maxH = new int[left.length];
+        cards = new int[left.length];
+        // Sentinel values keep the aggregate update branch-free for NIL children
+        minH[NIL] = Integer.MAX_VALUE;
+        maxH[NIL] = Integer.MIN_VALUE;
+    }
+
+    @Override
+    public void copyPayload(int from, int to) {
+        super.copyPayload(from, to);
+        inner[to] = inner[from];
+        bandMinH[to] = bandMinH[from];
+        bandMaxH[to] = bandMaxH[from];
+    }
+
+    @Override
+    public void copyNode(int from, int to) {
+        super.copyNode(from, to);
+        minH[to] = minH[from];
+        maxH[to] = maxH[from];
+        cards[to] = cards[from];
+    }
+
+    @Override
+    protected void grow(int cap) {
+        super.grow(cap);
+        inner = copyOf(inner, cap);
+        bandMinH = copyOf(bandMinH, cap);
+        bandMaxH = copyOf(bandMaxH, cap);
+        minH = copyOf(minH, cap);
+        maxH = copyOf(maxH, cap);
+        cards = copyOf(cards, cap);
+    }
+}
@@ -1,167 +1,363 @@
 public abstract class BaseAVL {
 
-    public Node root;
-    protected abstract int compareCards(Card c1, Card c2);
+    // Node storage (shared between trees of the same pool) and this tree's root handle
+    public final NodePool pool;
+    public int root = NodePool.NIL;
 
-    // Safe height getter (null -> 0)
-    public int getHeight(Node node){
-        if (node == null) {
-            return 0;
-        } else {
-            return node.height;
-        }
+    // Persistence: a node may be modified in place only if it carries this tree's generation.
+    // Nodes of an older generation may be shared with another branch (see freeze), so
+    // insert/delete copy them along the path instead and never release them. A tree that
+    // is never frozen owns every node it creates and behaves as a plain mutable AVL tree
+    protected int gen;
+
+    // True if the last insertNode/deleteAt added/removed a node (false for a duplicate
+    // insert or a missing key); lets owners count elements while the pool is shared
+    protected boolean changed;
+
+    // Ordering key of a card in this tree; computed once per operation, nodes store it
+    protected abstract long keyOf(Card card);
+
+    protected BaseAVL(NodePool pool) {
+        this.pool = pool;
+        this.gen = pool.newGeneration();
+    }
+
+    // Starts a new generation: every node existing now becomes read-only for this tree.
+    // Called on both sides when a branch is forked off the nodes reachable from root
+    public void freeze() {
+        gen = pool.newGeneration();
+        pool.noteFork();
+    }
+
+    protected boolean owns(int node) {
+        return pool.gen[node] == gen;
+    }
+
+    // Leaf of this tree's generation
+    protected int allocNode(long k, Card e) {
+        int n = pool.alloc(k, e);
+        pool.gen[n] = gen;
+        return n;
+    }
+
+    // Returns node itself if this tree may modify it, otherwise a private copy of it
+    protected int own(int node) {
+        if (node == NodePool.NIL || pool.gen[node] == gen) return node;
+        int copy = pool.alloc(pool.key[node], pool.element[node]);
+        pool.copyNode(node, copy);
+        pool.gen[copy] = gen;
+        return copy;
+    }
+
+    // Frees a node this tree unlinked; shared nodes stay (another branch may still use them)
+    // until NodePool.collect finds that no branch reaches them
+    protected void releaseNode(int node) {
+        if (owns(node)) pool.release(node);
+    }
+
+    // Height getter (NIL sentinel has height 0)
+    public int getHeight(int node){
+        return pool.height[node];
+    }
+
+    // Element stored at a node handle
+    public Card element(int node) {
+        return pool.element[node];
+    }
+
+    public boolean isEmpty() {
+        return root == NodePool.NIL;
+    }
+
+    // Recompute per-node bookkeeping from children (height, subtree size; subclasses add aggregates)
+    protected void updateNode(int node) {
+        int l = pool.left[node];
+        int r = pool.right[node];
+        pool.height[node] = (byte) (1 + Math.max(getHeight(l), getHeight(r)));
+        pool.subSize[node] = 1 + pool.subSize[l] + pool.subSize[r];
     }
 
     // Balance factor = left.height - right.height
-    public int getBalancedFactor(Node node) {
-        return getHeight(node.left) - getHeight(node.right);
+    public int getBalancedFactor(int node) {
+        return getHeight(pool.left[node]) - getHeight(pool.right[node]);
     }
 
-    // Right rotation around x
-    public Node rightRotate(Node x){
+    // Right rotation around x (both nodes are copied first if shared)
+    public int rightRotate(int x){
+        if (Metrics.ON) Metrics.rotations.increment();
         // Rewire pointers
-        Node temp = x.left.right;
-        Node newRoot = x.left;
-        newRoot.right = x;
-        x.left = temp;
+        x = own(x);
+        int newRoot = own(pool.left[x]);
+        int temp = pool.right[newRoot];
+        pool.right[newRoot] = x;
+        pool.left[x] = temp;
 
         // Update heights bottom-up
-        x.height = 1 + Math.max(getHeight(x.left) , getHeight(x.right));
-        newRoot.height = 1 + Math.max(getHeight(newRoot.left) , getHeight(newRoot.right));
+        updateNode(x);
+        updateNode(newRoot);
 
         return newRoot;
     }
 
-    // Left rotation around y
-    public Node leftRotate(Node y){
+    // Left rotation around y (both nodes are copied first if shared)
+    public int leftRotate(int y){
+        if (Metrics.ON) Metrics.rotations.increment();
         // Rewire pointers
-        Node temp = y.right.left;
-        Node newRoot = y.right;
-        newRoot.left = y;
-        y.right = temp;
+        y = own(y);
+        int newRoot = own(pool.right[y]);
+        int temp = pool.left[newRoot];
+        pool.left[newRoot] = y;
+        pool.right[y] = temp;
 
         // Update heights bottom-up
-        y.height = 1 + Math.max(getHeight(y.left) , getHeight(y.right));
-        newRoot.height = 1 + Math.max(getHeight(newRoot.left) , getHeight(newRoot.right));
+        updateNode(y);
+        updateNode(newRoot);
 
         return newRoot;
     }
 
-    // Public insert/delete entry points
-    public void insert(Card card) {
-        root = insertNode(card,root);
-    }
+    // Descent path reused by insert/delete: nodes from the root and the side taken at each
+    protected int[] path = new int[8];
+    protected int[] dirs = new int[8];
 
-    public void delete(Card card) {
-        root = deleteNode(root,card);
+    // Path never exceeds the root height; grow the scratch arrays only when the tree grows
+    protected void ensurePath(int need) {
+        if (need <= path.length) return;
+        int cap = path.length;
+        while (cap < need) cap *= 2;
+        path = new int[cap];
+        dirs = new int[cap];
     }
 
-    // Recursive AVL insert with rebalancing
-    public Node insertNode(Card x , Node currentNode){
-        if (currentNode == null) {
-            return new Node(x);
-        }
-        if (compareCards(x,currentNode.element) == -1) {
-            currentNode.left = insertNode(x,currentNode.left);
-        }
-        if (compareCards(x, currentNode.element) == 1) {
-            currentNode.right = insertNode(x,currentNode.right);
-        }
-
-        // Update height
-        currentNode.height = 1 + Math.max(getHeight(currentNode.left) , getHeight(currentNode.right));
+    // Restores the AVL property at node (children already up to date); returns subtree root
+    private int rebalance(int node) {
+        updateNode(node);
+        int balance = getBalancedFactor(node);
 
         // Rebalance (LL / LR)
-        if (getBalancedFactor(currentNode) > 1) {
-            // Left-Left
-            if (compareCards(x,currentNode.left.element) == -1) {
-                return rightRotate(currentNode);
-            }
-            // Left-Right
-            if (compareCards(x,currentNode.left.element) == 1){
-                currentNode.left = leftRotate(currentNode.left);
-                return rightRotate(currentNode);
+        if (balance > 1) {
+            if (getBalancedFactor(pool.left[node]) < 0) {
+                pool.left[node] = leftRotate(pool.left[node]); // Left-Right
             }
+            return rightRotate(node);
         }
 
         // Rebalance (RR / RL)
-        if (getBalancedFactor(currentNode) < -1) {
-            // Right-Right
-            if (compareCards(x,currentNode.right.element) == 1){
-                return leftRotate(currentNode);
-            }
-            // Right-Left
-            if (compareCards(x,currentNode.right.element) == -1) {
-                currentNode.right = rightRotate(currentNode.right);
-                return leftRotate(currentNode);
+        if (balance < -1) {
+            if (getBalancedFactor(pool.right[node]) > 0) {
+                pool.right[node] = rightRotate(pool.right[node]); // Right-Left
             }
+            return leftRotate(node);
         }
 
-        return currentNode;
+        return node;
     }
 
-    // Smallest node in subtree (leftmost)
-    public Node findMin(Node node) {
-        // Guard for null subtree
-        if (node == null)
-            return null;
-        if (node.left == null)
-            return node;
-        return findMin(node.left);
-    }
-
-    // Recursive AVL delete with rebalancing
-    public Node deleteNode(Node currentNode, Card target){
-        if (currentNode == null) {
-            return null;
+    // Walks the recorded path bottom-up, re-linking child and rebalancing; returns the new root
+    // Shared path nodes are copied here, so every change stays private to this tree
+    private int unwind(int depth, int child) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = own(path[i]);
+            if (dirs[i] < 0) pool.left[node] = child;
+            else pool.right[node] = child;
+            child = rebalance(node);
         }
-        if (compareCards(target,currentNode.element) == -1) {
-            currentNode.left = deleteNode(currentNode.left, target);
-        } else if (compareCards(target, currentNode.element) == 1) {
-            currentNode.right = deleteNode(currentNode.right ,target);
-        } else {
-            // Found target: handle 0/1/2 children cases
-            if ((currentNode.right == null) && (currentNode.left == null)) {
-                // No child
-                return null;
-            } else if ((currentNode.right == null) || (currentNode.left == null)){
-                // One child
-                if (currentNode.left == null)
-                    return currentNode.right;
-                else
-                    return currentNode.left;
-            } else {
-                // Two children: replace with inorder successor
-                Node successor = findMin(currentNode.right);
-                currentNode.element = successor.element; // copy successor value
-                currentNode.right = deleteNode(currentNode.right , successor.element); // delete successor
+        return child;
+    }
+
+    // Public insert/delete entry points for trees that own their root
+    public void insert(Card card) {
+        root = insertAt(root, card);
+    }
+
+    public void delete(Card card) {
+        root = deleteAt(root, keyOf(card));
+    }
+
+    // Inserts card into the tree rooted at 'top'; returns the new root
+    public int insertAt(int top, Card card) {
+        return insertNode(top, allocNode(keyOf(card), card));
+    }
+
+    // Links a prepared leaf (key and payload already set) into the tree rooted at 'top'
+    // Iterative: one key comparison per level on the way down, rebalance on the way up
+    public int insertNode(int top, int leaf) {
+        updateNode(leaf);
+        changed = true;
+        if (top == NodePool.NIL) return leaf;
+        ensurePath(getHeight(top) + 1);
+
+        long k = pool.key[leaf];
+        int depth = 0;
+        int cur = top;
+        while (cur != NodePool.NIL) {
+            if (Metrics.ON) Metrics.comparisons.increment();
+            long nodeKey = pool.key[cur];
+            if (k == nodeKey) {
+                // Already present: leave the tree untouched
+                releaseNode(leaf);
+                changed = false;
+                return top;
             }
+            int dir = (k < nodeKey) ? -1 : 1;
+            path[depth] = cur;
+            dirs[depth] = dir;
+            depth++;
+            cur = (dir < 0) ? pool.left[cur] : pool.right[cur];
         }
+        return unwind(depth, leaf);
+    }
 
-        // Update height
-        currentNode.height = 1 + Math.max(getHeight(currentNode.left), getHeight(currentNode.right));
+    // Links leaf below the first 'depth' entries of path/dirs and rebalances; returns the new
+    // root. For subclasses that find the place with their own descent
+    protected int linkAt(int depth, int leaf) {
+        updateNode(leaf);
+        changed = true;
+        return unwind(depth, leaf);
+    }
 
-        // Rebalance (LL / LR)
-        if (getBalancedFactor(currentNode) > 1) {
-            if (getBalancedFactor(currentNode.left) >= 0) {
-                return rightRotate(currentNode); // Left-Left
-            } else {
-                currentNode.left = leftRotate(currentNode.left); // Left-Right
-                return rightRotate(currentNode);
+    // Iterative AVL delete of key k from the tree rooted at 'top'; returns the new root
+    // The successor is unlinked on the same path, no second search
+    public int deleteAt(int top, long k) {
+        changed = false;
+        if (top == NodePool.NIL) return top;
+        ensurePath(getHeight(top) + 1);
+
+        int depth = 0;
+        int cur = top;
+        while (cur != NodePool.NIL) {
+            if (Metrics.ON) Metrics.comparisons.increment();
+            long nodeKey = pool.key[cur];
+            if (k == nodeKey) break;
+            int dir = (k < nodeKey) ? -1 : 1;
+            path[depth] = cur;
+            dirs[depth] = dir;
+            depth++;
+            cur = (dir < 0) ? pool.left[cur] : pool.right[cur];
+        }
+        if (cur == NodePool.NIL) return top; // Not found
+        return unlinkAt(depth, cur);
+    }
+
+    // Deletes node cur, reached through the first 'depth' entries of path/dirs; returns the
+    // new root. For subclasses that find the node with their own descent
+    protected int unlinkAt(int depth, int cur) {
+        changed = true;
+
+        int replacement;
+        if (pool.left[cur] != NodePool.NIL && pool.right[cur] != NodePool.NIL) {
+            // Two children: copy the inorder successor up, then unlink the successor node
+            cur = own(cur);
+            path[depth] = cur;
+            dirs[depth] = 1;
+            depth++;
+            int successor = pool.right[cur];
+            while (pool.left[successor] != NodePool.NIL) {
+                path[depth] = successor;
+                dirs[depth] = -1;
+                depth++;
+                successor = pool.left[successor];
             }
+            pool.copyPayload(successor, cur); // copy successor value
+            replacement = pool.right[successor];
+            releaseNode(successor);
+        } else {
+            // Zero or one child: splice the node out
+            replacement = (pool.left[cur] != NodePool.NIL) ? pool.left[cur] : pool.right[cur];
+            releaseNode(cur);
         }
+        return unwind(depth, replacement);
+    }
 
-        // Rebalance (RR / RL)
-        if (getBalancedFactor(currentNode) < -1) {
-            if (getBalancedFactor(currentNode.right) <= 0){
-                return leftRotate(currentNode); // Right-Right
+    // Node with the smallest key >= k in the tree rooted at 'top' (NIL if none)
+    public int ceiling(int top, long k) {
+        int cur = top, ans = NodePool.NIL;
+        while (cur != NodePool.NIL) {
+            if (Metrics.ON) Metrics.comparisons.increment();
+            if (pool.key[cur] >= k) {
+                ans = cur;
+                cur = pool.left[cur];
+            } else cur = pool.right[cur];
+        }
+        return ans;
+    }
+
+    // Node with the largest key <= k in the tree rooted at 'top' (NIL if none)
+    public int floor(int top, long k) {
+        int cur = top, ans = NodePool.NIL;
+        while (cur != NodePool.NIL) {
+            if (Metrics.ON) Metrics.comparisons.increment();
+            if (pool.key[cur] <= k) {
+                ans = cur;
+                cur = pool.right[cur];
+            } else cur = pool.left[cur];
+        }
+        return ans;
+    }
+
+    // Frees every node of the subtree this tree owns; below a shared node everything is
+    // shared (changes copy whole root paths), so the walk stops there
+    public void releaseTree(int node) {
+        if (node == NodePool.NIL || !owns(node)) return;
+        releaseTree(pool.left[node]);
+        releaseTree(pool.right[node]);
+        pool.release(node);
+    }
+
+    // Number of nodes in the tree rooted at 'top' (O(1))
+    public int sizeOf(int top) {
+        return pool.subSize[top];
+    }
+
+    // Number of keys > k in the tree rooted at 'top', in O(log n)
+    public int countGreater(int top, long k) {
+        int cur = top, count = 0;
+        while (cur != NodePool.NIL) {
+            if (pool.key[cur] > k) {
+                count += 1 + pool.subSize[pool.right[cur]];
+                cur = pool.left[cur];
+            } else cur = pool.right[cur];
+        }
+        return count;
+    }
+
+    // Node holding the i-th smallest key (0-based) in the tree rooted at 'top'; NIL if out of range
+    public int select(int top, int i) {
+        int cur = top;
+        while (cur != NodePool.NIL) {
+            int leftSize = pool.subSize[pool.left[cur]];
+            if (i < leftSize) {
+                cur = pool.left[cur];
+            } else if (i == leftSize) {
+                return cur;
             } else {
-                currentNode.right = rightRotate(currentNode.right); // Right-Left
-                return leftRotate(currentNode);
+                i -= leftSize + 1;
+                cur = pool.right[cur];
             }
         }
+        return NodePool.NIL;
+    }
+
+    // Links prepared leaves nodes[lo..hi] (sorted by key) into a perfectly balanced tree
+    // in O(n); sibling sizes differ by at most one, so the result is a valid AVL tree
+    public int buildBalanced(int[] nodes, int lo, int hi) {
+        if (lo > hi) return NodePool.NIL;
+        int mid = (lo + hi) >>> 1;
+        int node = nodes[mid];
+        pool.left[node] = buildBalanced(nodes, lo, mid - 1);
+        pool.right[node] = buildBalanced(nodes, mid + 1, hi);
+        updateNode(node);
+        return node;
+    }
 
-        return currentNode;
+    // Smallest node in subtree (leftmost)
+    public int findMin(int node) {
+        // Guard for empty subtree
+        if (node == NodePool.NIL)
+            return NodePool.NIL;
+        while (pool.left[node] != NodePool.NIL)
+            node = pool.left[node];
+        return node;
     }
 
-}
\ No newline at end of file
+}
@@ -8,6 +8,7 @@ public class Card {
     private int Hcur;
     private String name;
     private int entryOrder;
+    private int owner; // Game branch allowed to modify this card in place (see Game.fork)
 
     Card () {
 
@@ -24,6 +25,18 @@ public class Card {
         this.Hcur = Hinit;
     }
 
+    // Restores a card with every stat as saved (snapshots)
+    Card(String name, int Ainit, int Abase, int Acur, int Hinit, int Hbase, int Hcur, int entryOrder) {
+        this.entryOrder = entryOrder;
+        this.name = name;
+        this.Ainit = Ainit;
+        this.Abase = Abase;
+        this.Acur = Acur;
+        this.Hinit = Hinit;
+        this.Hbase = Hbase;
+        this.Hcur = Hcur;
+    }
+
     // Getter - setter methods
     public int getEntryOrder() {
         return entryOrder;
@@ -73,4 +86,17 @@ public class Card {
         return name;
     }
 
+    public int getOwner() {
+        return owner;
+    }
+
+    public void setOwner(int owner) {
+        this.owner = owner;
+    }
+
+    // Copy with every stat, for a game branch that must not modify a shared card
+    public Card copy() {
+        return new Card(name, Ainit, Abase, Acur, Hinit, Hbase, Hcur, entryOrder);
+    }
+
 }
@@ -0,0 +1,206 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Byte-level reader for Nightpass command lines.
+ *
+ * Reads straight from a ByteBuffer (normally a memory-mapped input file): each line is
+ * tokenized in place into a command code and int arguments, so nothing is allocated per
+ * line except the String of a drawn card's name. Files larger than one mapping window are
+ * mapped window by window; a line crossing a window edge triggers a remap at its start.
+ */
+public class CommandReader implements AutoCloseable {
+
+    // Command codes returned by nextCommand()
+    public static final int END = 0;
+    public static final int DRAW_CARD = 1;
+    public static final int BATTLE = 2;
+    public static final int FIND_WINNING = 3;
+    public static final int DECK_COUNT = 4;
+    public static final int DISCARD_PILE_COUNT = 5;
+    public static final int STEAL_CARD = 6;
+    public static final int SAVE_SNAPSHOT = 7;
+    public static final int LOAD_SNAPSHOT = 8;
+    public static final int DECK_RANK = 9;
+    public static final int KTH_STRONGEST = 10;
+    public static final int DECK_PERCENTILE = 11;
+    public static final int UNKNOWN = -1;
+
+    private static final byte[][] COMMANDS = {
+            null,
+            ascii("draw_card"),
+            ascii("battle"),
+            ascii("find_winning"),
+            ascii("deck_count"),
+            ascii("discard_pile_count"),
+            ascii("steal_card"),
+            ascii("save_snapshot"),
+            ascii("load_snapshot"),
+            ascii("deck_rank"),
+            ascii("kth_strongest"),
+            ascii("deck_percentile"),
+    };
+
+    private static final int WINDOW = 1 << 30;
+
+    private final FileChannel channel;  // null when reading a plain buffer
+    private final long fileSize;
+    private long windowStart = 0;
+    private ByteBuffer buf;
+
+    private int next = 0;      // Start of the next line
+    private int pos = 0;       // Next unread byte of the current line
+    private int lineEnd = 0;   // End of the current line (exclusive, before '\n')
+    private int cmdStart = 0;  // Command word of the current line, for error messages
+    private int cmdEnd = 0;
+    private byte[] scratch = new byte[64];
+
+    // Reads commands from buf[position, limit)
+    public CommandReader(ByteBuffer buf) {
+        this.channel = null;
+        this.fileSize = buf.limit();
+        this.buf = buf;
+        this.next = buf.position();
+    }
+
+    private CommandReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        map(0);
+    }
+
+    // Memory-maps the given file for reading
+    public static CommandReader open(String file) throws IOException {
+        Path path = Paths.get(file);
+        return new CommandReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        long size = Math.min(WINDOW, fileSize - start);
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        next = 0;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+
+    // Advances to the next non-blank line and returns its command code (END at end of input)
+    public int nextCommand() throws IOException {
+        while (true) {
+            if (next >= buf.limit()) {
+                if (channel == null || windowStart + buf.limit() >= fileSize) return END;
+                map(windowStart + next);
+            }
+            int end = findLineEnd(next);
+            if (end == buf.limit() && channel != null && windowStart + end < fileSize) {
+                // Line runs past this window: remap so that it starts the next one
+                map(windowStart + next);
+                end = findLineEnd(0);
+            }
+            pos = next;
+            lineEnd = end;
+            next = end + 1;
+            if (!hasNext()) continue; // blank line
+
+            cmdStart = pos;
+            skipToken();
+            cmdEnd = pos;
+            return lookup(cmdStart, cmdEnd);
+        }
+    }
+
+    private int findLineEnd(int from) {
+        int limit = buf.limit();
+        int i = from;
+        while (i < limit && buf.get(i) != '\n') i++;
+        return i;
+    }
+
+    private int lookup(int from, int to) {
+        int len = to - from;
+        for (int c = 1; c < COMMANDS.length; c++) {
+            byte[] word = COMMANDS[c];
+            if (word.length != len) continue;
+            int i = 0;
+            while (i < len && buf.get(from + i) == word[i]) i++;
+            if (i == len) return c;
+        }
+        return UNKNOWN;
+    }
+
+    // True if the current line has another token
+    public boolean hasNext() {
+        while (pos < lineEnd && isSpace(buf.get(pos))) pos++;
+        return pos < lineEnd;
+    }
+
+    private void skipToken() {
+        while (pos < lineEnd && !isSpace(buf.get(pos))) pos++;
+    }
+
+    // Parses the next token of the line as a (possibly signed) decimal int. Like
+    // Integer.parseInt, a token that is not one ("12abc", a lone sign, out of int range)
+    // throws NumberFormatException
+    public int nextInt() {
+        hasNext();
+        int start = pos;
+        boolean negative = false;
+        if (pos < lineEnd && (buf.get(pos) == '-' || buf.get(pos) == '+')) {
+            negative = buf.get(pos) == '-';
+            pos++;
+        }
+        int digits = pos;
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        while (pos < lineEnd && !isSpace(buf.get(pos))) {
+            int d = buf.get(pos) - '0';
+            if (d < 0 || d > 9) throw badInt(start);
+            value = value * 10 + d;
+            if (value > limit) throw badInt(start);
+            pos++;
+        }
+        if (pos == digits) throw badInt(start);
+        return (int) (negative ? -value : value);
+    }
+
+    private NumberFormatException badInt(int start) {
+        skipToken();
+        return new NumberFormatException("For input string: \"" + decode(start, pos) + "\"");
+    }
+
+    // Returns the next token of the line as a String (a card name)
+    public String nextName() {
+        hasNext();
+        int start = pos;
+        skipToken();
+        return decode(start, pos);
+    }
+
+    // Command word of the current line, for error messages
+    public String commandName() {
+        return decode(cmdStart, cmdEnd);
+    }
+
+    private String decode(int from, int to) {
+        int len = to - from;
+        if (len > scratch.length) scratch = new byte[Math.max(len, scratch.length * 2)];
+        for (int i = 0; i < len; i++) scratch[i] = buf.get(from + i);
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+}
@@ -2,6 +2,7 @@ class DeadCard extends Card {
     final Card ref; // Reference to the original Card
     private int deathOrder;
     private int revivalProgress;
+    private long discardKey; // Ordering key in DiscardAVL, fixed while the card is in the pile
 
     DeadCard(Card ref, int deathOrder) {
         super(ref.getName(), ref.getAinit(), ref.getHinit(), ref.getEntryOrder());
@@ -31,10 +32,27 @@ class DeadCard extends Card {
         this.deathOrder = deathOrder;
     }
 
+    public long getDiscardKey() {
+        return discardKey;
+    }
+
+    public void setDiscardKey(long discardKey) {
+        this.discardKey = discardKey;
+    }
+
     public Card getRef() {
         return ref;
     }
 
+    // Copy holding its own copy of the original Card
+    @Override
+    public DeadCard copy() {
+        DeadCard d = new DeadCard(ref.copy(), deathOrder);
+        d.revivalProgress = revivalProgress;
+        d.discardKey = discardKey;
+        return d;
+    }
+
     // Applies partial revival: reduces base attack by 5% and increases progress
     public void applyPartial(int pts) {
         if (pts <= 0) return;
@@ -0,0 +1,77 @@
+import java.io.*;
+
+/**
+ * Compares the deck engines on one command file.
+ *
+ * Usage: java DeckBenchmark <input_file> [runs] [engine ...]
+ *
+ * Every engine (default: avl, segment and btree) replays the whole file 'runs' times (default 5)
+ * after one warm-up run. Output goes to memory only. The best and median run times are
+ * printed, and the run fails if two engines produce different output.
+ */
+public class DeckBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java DeckBenchmark <input_file> [runs] [engine ...]");
+            return;
+        }
+        String inFile = args[0];
+        int runs = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+        String[] engines = (args.length > 2) ? new String[args.length - 2] : new String[]{"avl", "segment", "btree"};
+        for (int i = 2; i < args.length; i++) engines[i - 2] = args[i];
+
+        byte[] reference = null;
+        for (String engine : engines) {
+            ByteArrayOutputStream first = new ByteArrayOutputStream();
+            replay(inFile, engine, first); // warm-up, and the output to compare
+            byte[] output = first.toByteArray();
+            if (reference == null) {
+                reference = output;
+            } else if (!java.util.Arrays.equals(reference, output)) {
+                System.out.println(engine + ": output differs from " + engines[0]);
+                return;
+            }
+
+            long[] times = new long[runs];
+            long lines = 0;
+            for (int r = 0; r < runs; r++) {
+                long start = System.nanoTime();
+                lines = replay(inFile, engine, new ByteArrayOutputStream(output.length));
+                times[r] = System.nanoTime() - start;
+            }
+            insertionSort(times);
+            System.out.printf("%-8s best %.3f ms, median %.3f ms (%.0f lines/s)%n", engine,
+                    times[0] / 1e6, times[runs / 2] / 1e6, lines / (times[runs / 2] / 1e9));
+        }
+    }
+
+    // Plays the whole file on a fresh game; returns the number of commands
+    private static long replay(String inFile, String engine, OutputStream sink) throws IOException {
+        long lines = 0;
+        try (CommandReader reader = CommandReader.open(inFile);
+             ResponseEncoder writer = new ResponseEncoder(sink)) {
+            Game game = new Game(writer, engine);
+            int command;
+            while ((command = reader.nextCommand()) != CommandReader.END) {
+                lines++;
+                if (!game.execute(command, reader)) {
+                    throw new IOException("Invalid command: " + reader.commandName());
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static void insertionSort(long[] a) {
+        for (int i = 1; i < a.length; i++) {
+            long v = a[i];
+            int j = i - 1;
+            while (j >= 0 && a[j] > v) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = v;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Deck of playable cards as used by Game: insert/delete plus the battle and steal queries,
+ * which are 2D dominance queries over (Acur, Hcur).
+ *
+ * Implementations:
+ *   "avl"     - AttackAVL, attack bands in an AVL tree with health aggregates (default)
+ *   "segment" - SegmentDeck, sparse segment tree over the attack domain
+ *   "btree"   - BTreeDeck, B+-tree band index with wide nodes and linked leaves
+ *
+ * The engine is chosen at startup with -Dnightpass.deck=avl|segment|btree. Every engine keeps
+ * the cards of one attack value in a HealthAVL over the shared card pool and must answer
+ * every query with the same card. As a NodePool.Owner, a deck marks the inner trees it
+ * holds in the card pool when that pool is collected after forks.
+ */
+public interface DeckEngine extends NodePool.Owner {
+
+    String DEFAULT = System.getProperty("nightpass.deck", "avl");
+
+    // Creates an empty deck of the named engine over the given card node pool
+    static DeckEngine create(String name, NodePool cards) {
+        switch (name) {
+            case "avl":
+                return new AttackAVL(cards);
+            case "segment":
+                return new SegmentDeck(cards);
+            case "btree":
+                return new BTreeDeck(cards);
+            default:
+                throw new IllegalArgumentException("Unknown deck engine: " + name);
+        }
+    }
+
+    // Adds a card; a card equal to one in the deck (same A, H and entry order) is ignored
+    void insert(Card c);
+
+    // Removes a card (looked up by its current A, H and entry order)
+    void delete(Card c);
+
+    boolean isEmpty();
+
+    int cardCount();
+
+    // Distinct attack values in the deck
+    int bandCount();
+
+    // Levels of the band index (for metrics)
+    int height();
+
+    // Same result as inserting cards[0..n) one by one; may reorder the array
+    void bulkInsert(Card[] cards, int n);
+
+    // Appends every card in deck order (A, then H, then entry order) starting at pos;
+    // returns the next free position
+    int dumpInOrder(Card[] out, int pos);
+
+    // Replaces the deck with cards already in deck order and free of duplicates
+    void loadSorted(Card[] sorted, int n);
+
+    // Persistent branch sharing every card node; both decks copy what they change afterwards.
+    // O(1) for avl and segment, O(bands) for btree, which copies its band index (see Game.fork)
+    DeckEngine fork();
+
+    // Releases the deck's own index nodes that no branch reaches any more, if enough may
+    // have piled up since forks (see NodePool.collectIfDue); only between operations
+    void reclaim();
+
+    // Order statistics. Rank 1 is the strongest card: the last one in deck order
+
+    // Rank of c (1..cardCount), or -1 if c (by its A, H and entry order) is not in the deck
+    int rankOf(Card c);
+
+    // Card of rank k, or null if k is outside 1..cardCount
+    Card kthStrongest(int k);
+
+    // Number of cards with Acur < att
+    int countAttackBelow(int att);
+
+    // P1: min A >= hp holding some H > att; there the min such H
+    Card findForPriority1(int att, int hp);
+
+    // P2: max A < hp holding some H > att; there the min such H
+    Card findForPriority2(int att, int hp);
+
+    // P3: min A >= hp holding some H <= att; there the min H
+    Card findForPriority3(int att, int hp);
+
+    // P4: max A; there the min H
+    Card findForPriority4(int att, int hp);
+
+    // Steal: min A > att holding some H > hp; there the min such H
+    Card findForSteal(int att, int hp);
+}
@@ -1,68 +1,238 @@
-public class DiscardAVL extends BaseAVL {
+public class DiscardAVL extends BaseAVL implements NodePool.Owner {
 
-    @Override
-    protected int compareCards(Card c1, Card c2) {
-        DeadCard d1 = (DeadCard) c1;
-        DeadCard d2 = (DeadCard) c2;
+    private int count = 0;   // Cards in this pile (the pool may be shared with forked piles)
+
+    public DiscardAVL() {
+        super(new NodePool(256));
+        pool.addOwner(this);
+    }
+
+    // Branch sharing the pool and every current node with 'from' (see fork)
+    private DiscardAVL(DiscardAVL from) {
+        super(from.pool);
+        this.root = from.root;
+        this.count = from.count;
+        pool.addOwner(this);
+    }
 
-        // Compare by missing health (smaller Hmissing goes left)
-        int a = Integer.compare(d1.getHmissing(), d2.getHmissing());
-        if (a != 0) return a;
+    // Persistent branch in O(1); both piles path-copy whatever they change from now on
+    public DiscardAVL fork() {
+        freeze();
+        return new DiscardAVL(this);
+    }
 
-        // Then by death order (earlier discarded goes left)
-        int b = Integer.compare(d1.getDeathOrder(), d2.getDeathOrder());
-        if (b != 0) return b;
+    // Packs (Hmissing, deathOrder): smaller Hmissing goes left, then earlier death. Death
+    // orders are unique in the pile, so this key alone decides every comparison the old
+    // (Hmissing, deathOrder, entryOrder, name) did
+    public static long discardKey(int hmissing, int deathOrder) {
+        return ((long) hmissing << 32) | (deathOrder & 0xffffffffL);
+    }
 
-        // As fallback, compare by reference card entry order
-        int c = Integer.compare(d1.getRef().getEntryOrder(), d2.getRef().getEntryOrder());
-        if (c != 0) return c;
+    private static int hmissingOf(long key) {
+        return (int) (key >>> 32);
+    }
 
-        // Final tie-breaker: compare by name (ensures determinism)
-        return d1.getRef().getName().compareTo(d2.getRef().getName());
+    @Override
+    protected long keyOf(Card card) {
+        return ((DeadCard) card).getDiscardKey();
     }
 
     @Override
     public void insert(Card card) {
-        // Insert a DeadCard node into the AVL tree
+        // Precompute the composite key once; it stays valid while the card is in the pile
         DeadCard deadCard = (DeadCard) card;
+        deadCard.setDiscardKey(discardKey(deadCard.getHmissing(), deadCard.getDeathOrder()));
         super.insert(deadCard);
+        if (changed) count++;
     }
 
     @Override
     public void delete(Card card) {
-        // Delete a DeadCard node from the AVL tree
-        DeadCard deadCard = (DeadCard) card;
-        super.delete(deadCard);
+        super.delete(card);
+        if (changed) count--;
     }
 
-    // Finds the card with the largest Hmissing <= heal (used in full revival)
-    public Node bestFull(int heal) {
-        Node cur = root;
-        Node best = null;
+    public int size() {
+        return count;
+    }
 
-        while (cur != null) {
-            DeadCard deadCard = (DeadCard) cur.element;
-            if (deadCard.getHmissing() <= heal) {
+    @Override
+    public void markNodes(NodePool p) {
+        p.markTree(root);
+    }
+
+    // Finds the card with the largest Hmissing <= heal (used in full revival), or null.
+    // Among equal Hmissing it is the one the search path ends on, moved down left while
+    // the left child has the same Hmissing: which card that is depends on the tree shape,
+    // so the pile must keep evolving through the same inserts and deletes
+    public DeadCard bestFull(int heal) {
+        int cur = root;
+        int best = NodePool.NIL;
+        while (cur != NodePool.NIL) {
+            if (Metrics.ON) Metrics.comparisons.increment();
+            if (hmissingOf(pool.key[cur]) <= heal) {
                 best = cur;
-                cur = cur.right; // search for a larger valid Hmissing
+                cur = pool.right[cur]; // search for a larger valid Hmissing
             } else {
-                cur = cur.left;
+                cur = pool.left[cur];
             }
         }
-
-        if (best == null) return null;
+        if (best == NodePool.NIL) return null;
 
         // Move left to find the leftmost node with same Hmissing
-        DeadCard bd = (DeadCard) best.element;
-        int hm = bd.getHmissing();
-        Node x = best;
-        while (x.left != null) {
-            DeadCard leftD = (DeadCard) x.left.element;
-            if (leftD.getHmissing() == hm) x = x.left;
-            else break;
+        int hm = hmissingOf(pool.key[best]);
+        int x = best;
+        while (pool.left[x] != NodePool.NIL && hmissingOf(pool.key[pool.left[x]]) == hm) {
+            x = pool.left[x];
+        }
+        return (DeadCard) pool.element[x];
+    }
+
+    // Full revives for a heal budget in one pass: again and again the card bestFull would
+    // pick, removed through the path that found it instead of a second descent to delete it,
+    // until no card fits. Same picks and same deletes as a bestFull / delete loop, so the pile
+    // keeps evolving the same way. Writes the cards to out in revive order; returns how many
+    public int takeFull(int heal, DeadCard[] out) {
+        int n = 0;
+        while (heal > 0 && root != NodePool.NIL) {
+            ensurePath(getHeight(root) + 1);
+            int depth = 0;
+            int cur = root;
+            int best = NodePool.NIL;
+            int bestDepth = 0;
+            while (cur != NodePool.NIL) {
+                if (Metrics.ON) Metrics.comparisons.increment();
+                path[depth] = cur;
+                if (hmissingOf(pool.key[cur]) <= heal) {
+                    best = cur;
+                    bestDepth = depth;
+                    dirs[depth++] = 1;
+                    cur = pool.right[cur];
+                } else {
+                    dirs[depth++] = -1;
+                    cur = pool.left[cur];
+                }
+            }
+            if (best == NodePool.NIL) break;
+
+            // Same move left as bestFull, extending the path down to the picked node
+            int hm = hmissingOf(pool.key[best]);
+            int x = best;
+            depth = bestDepth;
+            while (pool.left[x] != NodePool.NIL && hmissingOf(pool.key[pool.left[x]]) == hm) {
+                path[depth] = x;
+                dirs[depth++] = -1;
+                x = pool.left[x];
+            }
+            out[n++] = (DeadCard) pool.element[x];
+            root = unlinkAt(depth, x);
+            count--;
+            heal -= hm;
+        }
+        return n;
+    }
+
+    // Card targeted by a partial revive: smallest Hmissing, earliest death among equals
+    public DeadCard minMissing() {
+        if (root == NodePool.NIL) return null;
+        return (DeadCard) pool.element[findMin(root)];
+    }
+
+    // Puts 'card' (the minimum card after a partial revive: lower Hmissing, new death order)
+    // in place of the current minimum, with the same result as deleting the minimum and
+    // inserting 'card'. The new key is below every other key, so both work on the left spine
+    // and need no key comparisons. The minimum has no left child and at most a leaf on its
+    // right. Its delete shrinks that subtree by one level, which travels up through the
+    // left-heavy spine nodes and stops at the first one that is not:
+    // - balanced (or none, up to the root): no rotation, and the insert restores every height.
+    //   Only the minimum's own subtree changes, so it is rewritten in place, copying just the
+    //   left spine of a shared tree: a leaf takes the new card; a minimum with a right leaf
+    //   passes its place to that leaf, which gets 'card' as its left child.
+    // - right-heavy: the delete rotates there and the shape really changes, so the minimum is
+    //   unlinked through the spine just walked and 'card' is linked at the bottom of the new
+    //   left spine, the two rebalancing passes of delete + insert without their searches
+    public void replaceMin(DeadCard card) {
+        card.setDiscardKey(discardKey(card.getHmissing(), card.getDeathOrder()));
+        ensurePath(getHeight(root) + 1);
+        int depth = 0;
+        int min = root;
+        int lastBalance = 1;
+        while (pool.left[min] != NodePool.NIL) {
+            int balance = getBalancedFactor(min);
+            if (balance != 1) lastBalance = balance;
+            path[depth] = min;
+            dirs[depth++] = -1;
+            min = pool.left[min];
+        }
+        if (lastBalance < 0) {
+            root = unlinkAt(depth, min);
+            depth = 0;
+            for (int node = root; node != NodePool.NIL; node = pool.left[node]) {
+                path[depth] = node;
+                dirs[depth++] = -1;
+            }
+            root = linkAt(depth, allocNode(card.getDiscardKey(), card));
+            return;
+        }
+
+        root = own(root);
+        int node = root;
+        while (pool.left[node] != NodePool.NIL) {
+            int child = own(pool.left[node]);
+            pool.left[node] = child;
+            node = child;
         }
+        int right = pool.right[node];
+        if (right != NodePool.NIL) {
+            // Same two nodes, heights and sizes; the right leaf's card moves up
+            right = own(right);
+            pool.copyPayload(right, node);
+            pool.left[node] = right;
+            pool.right[node] = NodePool.NIL;
+            node = right;
+        }
+        pool.key[node] = card.getDiscardKey();
+        pool.element[node] = card;
+    }
+
+    // Tree shape of a node in a pre-order dump: bit 0 = has a left child, bit 1 = a right one
+    private static final byte HAS_LEFT = 1;
+    private static final byte HAS_RIGHT = 2;
+
+    // Writes every dead card in pre-order to out and its child flags to shape; returns the
+    // count. loadPreOrder rebuilds the exact same tree, which full revives depend on
+    public int dumpPreOrder(DeadCard[] out, byte[] shape) {
+        return dump(root, out, shape, 0);
+    }
+
+    private int dump(int node, DeadCard[] out, byte[] shape, int pos) {
+        if (node == NodePool.NIL) return pos;
+        int l = pool.left[node];
+        int r = pool.right[node];
+        out[pos] = (DeadCard) pool.element[node];
+        shape[pos] = (byte) ((l != NodePool.NIL ? HAS_LEFT : 0) | (r != NodePool.NIL ? HAS_RIGHT : 0));
+        pos = dump(l, out, shape, pos + 1);
+        return dump(r, out, shape, pos);
+    }
+
+    // Builds the pile from an empty tree and a previous dumpPreOrder; O(n), no comparisons
+    public void loadPreOrder(DeadCard[] cards, byte[] shape, int n) {
+        next = 0;
+        root = (n == 0) ? NodePool.NIL : load(cards, shape);
+        count = n;
+    }
+
+    // Pre-order position of the next node load() creates
+    private int next;
 
-        return x;
+    private int load(DeadCard[] cards, byte[] shape) {
+        int i = next++;
+        int node = allocNode(discardKey(cards[i].getHmissing(), cards[i].getDeathOrder()), cards[i]);
+        cards[i].setDiscardKey(pool.key[node]);
+        if ((shape[i] & HAS_LEFT) != 0) pool.left[node] = load(cards, shape);
+        if ((shape[i] & HAS_RIGHT) != 0) pool.right[node] = load(cards, shape);
+        updateNode(node);
+        return node;
     }
 
-}
\ No newline at end of file
+}
@@ -1,23 +1,366 @@
+import java.io.IOException;
+
 public class Game {
-    // Active deck of playable cards (grouped/managed by AttackAVL)
-    private AttackAVL deck = new AttackAVL();
+    // Fixed response fragments, encoded once
+    private static final byte[] ADDED = ResponseEncoder.fragment("Added ");
+    private static final byte[] TO_DECK = ResponseEncoder.fragment(" to the deck");
+    private static final byte[] NO_CARDS_TO_PLAY = ResponseEncoder.fragment("No cards to play, ");
+    private static final byte[] CARDS_REVIVED = ResponseEncoder.fragment(" cards revived");
+    private static final byte[] FOUND_WITH_PRIORITY = ResponseEncoder.fragment("Found with priority ");
+    private static final byte[] SURVIVOR_PLAYS = ResponseEncoder.fragment(", Survivor plays ");
+    private static final byte[] RETURNED = ResponseEncoder.fragment(", the played card returned to deck, ");
+    private static final byte[] DISCARDED = ResponseEncoder.fragment(", the played card is discarded, ");
+    private static final byte[] DECK_COUNT = ResponseEncoder.fragment("Number of cards in the deck: ");
+    private static final byte[] SURVIVOR_WINS = ResponseEncoder.fragment("The Survivor, Score: ");
+    private static final byte[] STRANGER_WINS = ResponseEncoder.fragment("The Stranger, Score: ");
+    private static final byte[] NO_STEAL = ResponseEncoder.fragment("No card to steal");
+    private static final byte[] STOLE = ResponseEncoder.fragment("The Stranger stole the card: ");
+    private static final byte[] DISCARD_COUNT = ResponseEncoder.fragment("Number of cards in the discard pile: ");
+    private static final byte[] DECK_RANK_OF = ResponseEncoder.fragment("Deck rank of ");
+    private static final byte[] COLON = ResponseEncoder.fragment(": ");
+    private static final byte[] OF = ResponseEncoder.fragment(" of ");
+    private static final byte[] NO_CARD_NAMED = ResponseEncoder.fragment("No card named ");
+    private static final byte[] IN_THE_DECK = ResponseEncoder.fragment(" in the deck");
+    private static final byte[] STRONGEST_CARD = ResponseEncoder.fragment("Strongest card #");
+    private static final byte[] ATTACK = ResponseEncoder.fragment(", attack ");
+    private static final byte[] HEALTH = ResponseEncoder.fragment(", health ");
+    private static final byte[] NO_CARD_AT_RANK = ResponseEncoder.fragment("No card at rank ");
+    private static final byte[] ATTACK_BELOW = ResponseEncoder.fragment("Cards with attack below ");
+    private static final byte[] OPEN = ResponseEncoder.fragment(" (");
+    private static final byte[] PERCENT = ResponseEncoder.fragment("%)");
+    private static final byte[] SNAPSHOT_SAVED = ResponseEncoder.fragment("Snapshot saved to ");
+    private static final byte[] SNAPSHOT_LOADED = ResponseEncoder.fragment("Snapshot loaded from ");
+    private static final byte[] SNAPSHOT_ERROR = ResponseEncoder.fragment("Snapshot error: ");
+
+    // Every command writes its response line here
+    private final ResponseEncoder out;
+
+    // Node storage for the deck's inner health trees
+    private NodePool cardNodes;
+    // Active deck of playable cards (AttackAVL unless another DeckEngine is selected)
+    private final String engine;
+    private DeckEngine deck;
     private int survivorPts = 0;
     private int strangerPts = 0;
     private int entryOrderCounter = 0;
     private int deckSize = 0;
     private int discardPileSize = 0;
     private int discardentryOrderCounter = -1;
-    private DiscardAVL discardPile = new DiscardAVL();
+    private DiscardAVL discardPile;
+
+    // Cards stamped with this owner belong to this game alone; any other card may be shared
+    // with a fork and is copied before it is modified
+    private int cardEpoch = 0;
+
+    // Cards entering the deck from draws and full revives are buffered and loaded together
+    // before the next command that reads the deck; long runs are sorted and built in O(n)
+    private static final int BULK_MIN = 64;
+    private Card[] pendingDraws = new Card[16];
+    private int pendingCount = 0;
+
+    // Cards taken from the discard pile by the full revives of one heal
+    private DeadCard[] revivedCards = new DeadCard[16];
+
+    // Name lookup for deck_rank, built on its first use and from then on told about every
+    // card entering or leaving the deck; null until then (and after a fork or restore)
+    private NameIndex names;
+
+    public Game(ResponseEncoder out) {
+        this(out, DeckEngine.DEFAULT);
+    }
+
+    // Game on the named deck engine (see DeckEngine.create)
+    public Game(ResponseEncoder out, String engine) {
+        this.out = out;
+        this.engine = engine;
+        this.cardNodes = new NodePool(1024);
+        this.deck = DeckEngine.create(engine, cardNodes);
+        this.discardPile = new DiscardAVL();
+    }
+
+    private Game(Game from, ResponseEncoder out) {
+        this.out = out;
+        this.engine = from.engine;
+        this.cardNodes = from.cardNodes;
+        this.deck = from.deck.fork();
+        this.discardPile = from.discardPile.fork();
+        this.survivorPts = from.survivorPts;
+        this.strangerPts = from.strangerPts;
+        this.entryOrderCounter = from.entryOrderCounter;
+        this.deckSize = from.deckSize;
+        this.discardPileSize = from.discardPileSize;
+        this.discardentryOrderCounter = from.discardentryOrderCounter;
+    }
+
+    // What-if branch: a game with this game's exact state. The trees and cards are shared,
+    // not copied: forking costs O(1) for the pile and the avl and segment decks, O(bands) for
+    // the btree deck (its band index), after pending draws are flushed. Both games keep the
+    // shared state read-only and copy only what they change afterwards (O(log n) nodes per
+    // deck or pile change). The branch writes its responses to 'out'.
+    // A game and its branches share node pools, so drive them from a single thread
+    public Game fork(ResponseEncoder out) {
+        flushDraws();
+        Game branch = new Game(this, out);
+        this.cardEpoch = cardNodes.newGeneration();
+        branch.cardEpoch = cardNodes.newGeneration();
+        return branch;
+    }
+
+    // The card itself if this game owns it, otherwise a private copy
+    private Card own(Card c) {
+        if (c.getOwner() == cardEpoch) return c;
+        Card copy = c.copy();
+        copy.setOwner(cardEpoch);
+        return copy;
+    }
+
+    private DeadCard own(DeadCard dc) {
+        if (dc.getOwner() == cardEpoch) return dc;
+        DeadCard copy = dc.copy();
+        copy.setOwner(cardEpoch);
+        copy.getRef().setOwner(cardEpoch);
+        return copy;
+    }
+
+    // Runs the command the reader is positioned on (arguments default to "" / 0 when missing);
+    // returns false for an unknown command, which writes nothing
+    public boolean execute(int command, CommandReader in) throws IOException {
+        boolean known;
+        if (!Metrics.ON) {
+            known = dispatch(command, in);
+        } else {
+            long start = System.nanoTime();
+            known = dispatch(command, in);
+            Metrics.record(command, System.nanoTime() - start);
+        }
+        reclaim();
+        return known;
+    }
+
+    // Between commands every tree of every branch is consistent: the point where pools
+    // shared with forks may release the nodes no branch uses any more (see NodePool.collect)
+    private void reclaim() {
+        cardNodes.collectIfDue();
+        discardPile.pool.collectIfDue();
+        deck.reclaim();
+    }
+
+    private boolean dispatch(int command, CommandReader in) throws IOException {
+        switch (command) {
+            case CommandReader.DRAW_CARD: {
+                String name = in.hasNext() ? in.nextName() : "";
+                int att = in.hasNext() ? in.nextInt() : 0;
+                int hp = in.hasNext() ? in.nextInt() : 0;
+                draw_card(name, att, hp);
+                return true;
+            }
+            case CommandReader.BATTLE: {
+                int att = in.hasNext() ? in.nextInt() : 0;
+                int hp = in.hasNext() ? in.nextInt() : 0;
+                int heal = in.hasNext() ? in.nextInt() : 0;
+                battle(att, hp, heal);
+                return true;
+            }
+            case CommandReader.FIND_WINNING:
+                findWinning();
+                return true;
+            case CommandReader.DECK_COUNT:
+                deckCount();
+                return true;
+            case CommandReader.DISCARD_PILE_COUNT:
+                discardPileCount();
+                return true;
+            case CommandReader.STEAL_CARD: {
+                int att = in.hasNext() ? in.nextInt() : 0;
+                int hp = in.hasNext() ? in.nextInt() : 0;
+                steal_card(att, hp);
+                return true;
+            }
+            case CommandReader.SAVE_SNAPSHOT:
+                snapshotCommand(true, in.hasNext() ? in.nextName() : "");
+                return true;
+            case CommandReader.LOAD_SNAPSHOT:
+                snapshotCommand(false, in.hasNext() ? in.nextName() : "");
+                return true;
+            case CommandReader.DECK_RANK:
+                deckRank(in.hasNext() ? in.nextName() : "");
+                return true;
+            case CommandReader.KTH_STRONGEST:
+                kthStrongest(in.hasNext() ? in.nextInt() : 0);
+                return true;
+            case CommandReader.DECK_PERCENTILE:
+                deckPercentile(in.hasNext() ? in.nextInt() : 0);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // save_snapshot / load_snapshot: one response line either way. A file that cannot be
+    // written or read is reported and the game goes on (a failed load leaves it unchanged)
+    private void snapshotCommand(boolean save, String file) throws IOException {
+        if (file.isEmpty()) {
+            out.write(SNAPSHOT_ERROR).name("missing file name").newline();
+            return;
+        }
+        try {
+            if (save) saveSnapshot(file);
+            else restoreSnapshot(file);
+        } catch (IOException e) {
+            String reason = e.getClass().getSimpleName();
+            if (e.getMessage() != null) reason += ": " + e.getMessage();
+            out.write(SNAPSHOT_ERROR).name(reason).newline();
+            return;
+        }
+        out.write(save ? SNAPSHOT_SAVED : SNAPSHOT_LOADED).name(file).newline();
+    }
+
+    // Writes the whole game state to file (see Snapshot for the layout); writes no response
+    public void saveSnapshot(String file) throws IOException {
+        flushDraws();
+        try (Snapshot.Out snap = new Snapshot.Out(file)) {
+            snap.putInt(Snapshot.MAGIC);
+            snap.putInt(Snapshot.VERSION);
+            snap.putInt(survivorPts);
+            snap.putInt(strangerPts);
+            snap.putInt(entryOrderCounter);
+            snap.putInt(deckSize);
+            snap.putInt(discardPileSize);
+            snap.putInt(discardentryOrderCounter);
+
+            Card[] cards = new Card[deck.cardCount()];
+            int n = deck.dumpInOrder(cards, 0);
+            snap.putInt(n);
+            for (int i = 0; i < n; i++) snap.putCard(cards[i]);
+
+            DeadCard[] dead = new DeadCard[discardPile.size()];
+            byte[] shape = new byte[dead.length];
+            int m = discardPile.dumpPreOrder(dead, shape);
+            snap.putInt(m);
+            for (int i = 0; i < m; i++) {
+                snap.putDeadCard(dead[i]);
+                snap.putByte(shape[i]);
+            }
+        }
+    }
+
+    // Replaces the whole game state by a snapshot; both trees are rebuilt in O(n), the deck
+    // from its in-order sequence and the pile node by node in its saved shape. Writes no response
+    public void restoreSnapshot(String file) throws IOException {
+        try (Snapshot.In snap = new Snapshot.In(file)) {
+            if (snap.getInt() != Snapshot.MAGIC || snap.getInt() != Snapshot.VERSION) {
+                throw new IOException("Not a Nightpass snapshot: " + file);
+            }
+            int survivor = snap.getInt();
+            int stranger = snap.getInt();
+            int entryCounter = snap.getInt();
+            int deckCards = snap.getInt();
+            int pileCards = snap.getInt();
+            int discardCounter = snap.getInt();
+
+            int n = snap.getInt();
+            if (n < 0) throw new IOException("Corrupt snapshot: " + file);
+            Card[] cards = new Card[n];
+            for (int i = 0; i < n; i++) {
+                cards[i] = snap.getCard();
+                cards[i].setOwner(cardEpoch);
+            }
+            int m = snap.getInt();
+            if (m < 0) throw new IOException("Corrupt snapshot: " + file);
+            DeadCard[] dead = new DeadCard[m];
+            byte[] shape = new byte[m];
+            for (int i = 0; i < m; i++) {
+                dead[i] = snap.getDeadCard();
+                shape[i] = snap.getByte();
+                dead[i].setOwner(cardEpoch);
+                dead[i].getRef().setOwner(cardEpoch);
+            }
+
+            // Only replace state once the whole file has been read
+            cardNodes = new NodePool(Math.max(1024, n + 1));
+            deck = DeckEngine.create(engine, cardNodes);
+            deck.loadSorted(cards, n);
+            discardPile = new DiscardAVL();
+            discardPile.loadPreOrder(dead, shape, m);
+            for (int i = 0; i < pendingCount; i++) pendingDraws[i] = null;
+            pendingCount = 0;
+            names = null;
 
-    // Creates a new Card with initial stats and inserts it into the deck.
-    public String draw_card(String name, int att, int hp){
+            survivorPts = survivor;
+            strangerPts = stranger;
+            entryOrderCounter = entryCounter;
+            deckSize = deckCards;
+            discardPileSize = pileCards;
+            discardentryOrderCounter = discardCounter;
+        }
+    }
+
+    public int survivorScore() {
+        return survivorPts;
+    }
+
+    public int strangerScore() {
+        return strangerPts;
+    }
+
+    // Final tree shape for Metrics
+    public int deckCardCount() {
+        flushDraws();
+        return deck.cardCount();
+    }
+
+    public int deckBandCount() {
+        return deck.bandCount();
+    }
+
+    public int deckHeight() {
+        return deck.height();
+    }
+
+    public int discardSize() {
+        return discardPile.size();
+    }
+
+    public int discardHeight() {
+        return discardPile.getHeight(discardPile.root);
+    }
+
+    // Creates a new Card with initial stats and queues it for the deck.
+    public void draw_card(String name, int att, int hp) throws IOException {
         Card card = new Card(name, att, hp, entryOrderCounter++);
-        deck.insert(card);
+        card.setOwner(cardEpoch);
+        queueForDeck(card);
         deckSize++;
-        return "Added " + name + " to the deck";
+        out.write(ADDED).name(name).write(TO_DECK).newline();
+    }
+
+    private void queueForDeck(Card card) {
+        if (pendingCount == pendingDraws.length) {
+            Card[] grown = new Card[pendingCount * 2];
+            System.arraycopy(pendingDraws, 0, grown, 0, pendingCount);
+            pendingDraws = grown;
+        }
+        pendingDraws[pendingCount++] = card;
+    }
+
+    // Moves buffered draws into the deck: bulk build when the run is long compared to
+    // the deck, plain inserts otherwise
+    private void flushDraws() {
+        if (pendingCount == 0) return;
+        if (pendingCount >= BULK_MIN && pendingCount >= deck.cardCount()) {
+            deck.bulkInsert(pendingDraws, pendingCount);
+        } else {
+            for (int i = 0; i < pendingCount; i++) deck.insert(pendingDraws[i]);
+        }
+        if (names != null) {
+            for (int i = 0; i < pendingCount; i++) names.add(pendingDraws[i]);
+        }
+        for (int i = 0; i < pendingCount; i++) pendingDraws[i] = null;
+        pendingCount = 0;
     }
 
-    public String battle(int att,int  hp,int heal){
+    public void battle(int att,int  hp,int heal) throws IOException {
+        flushDraws();
         Card best = null;
         int priority = 0;
 
@@ -44,11 +387,14 @@ public class Game {
         if (best == null) {
             int revived = runHealing(heal);
             strangerPts += 2;
-            return "No cards to play, " +revived+" cards revived";
+            out.write(NO_CARDS_TO_PLAY).integer(revived).write(CARDS_REVIVED).newline();
+            return;
         }
 
-        // Remove chosen card from the deck before resolution
+        // Remove chosen card from the deck before resolution (it is modified below)
         deck.delete(best);
+        if (names != null) names.remove(best);
+        best = own(best);
 
         // Simultaneous damage resolution
         int newHealth = best.getHcur() - att;
@@ -60,8 +406,8 @@ public class Game {
         if (newHealth > 0 && newHealth < best.getHbase()) strangerPts += 1;
         if (newStrangerHealth > 0 && newStrangerHealth < hp) survivorPts += 1;
 
-        // Build output and apply post-battle state transitions
-        String output;
+        // Apply post-battle state transitions
+        boolean returned = newHealth > 0;
         if (newHealth > 0) {
             // Survived: update Hcur, recompute Acur from Abase/H ratios, reinsert to deck
             best.setHcur(newHealth);
@@ -69,107 +415,151 @@ public class Game {
             int newAcur = Math.max(1, (best.getAbase() * best.getHcur()) / best.getHbase());
             best.setAcur(newAcur);
             deck.insert(best);
-            output =  "Found with priority " + priority + ", Survivor plays " + best.getName() + ", the played card returned to deck, %REV% cards revived";
+            if (names != null) names.add(best);
         } else {
             // Died: move to discard pile as DeadCard with initial revivalProgress = 0
             best.setHcur(0);
             deckSize--;
             DeadCard dc = new DeadCard(best, ++discardentryOrderCounter);
+            dc.setOwner(cardEpoch);
             dc.setRevivalProgress(0);
             discardPile.insert(dc);
             discardPileSize++;
-
-            output = "Found with priority " + priority + ", Survivor plays " + best.getName() + ", the played card is discarded, %REV% cards revived";
         }
 
         // Healing phase (Type-2; no effect for Type-1 since heal==0)
         int revived = runHealing(heal);
-        output = output.replace("%REV%", String.valueOf(revived));
-        return output;
+        out.write(FOUND_WITH_PRIORITY).integer(priority)
+                .write(SURVIVOR_PLAYS).name(best.getName())
+                .write(returned ? RETURNED : DISCARDED)
+                .integer(revived).write(CARDS_REVIVED).newline();
     }
 
     // Healing algorithm for Type-2:
     private int runHealing(int heal) {
-        int revived = 0;
-        if (heal <= 0 || discardPile.root == null) return 0;
-
-        // FULL: pick max Hmissing that is <= current heal (bestFull(heal)); loop until no more fits
-        while (heal > 0) {
-            Node n = discardPile.bestFull(heal);
-            if (n == null) break;
+        if (heal <= 0 || discardPile.isEmpty()) return 0;
+        if (!Metrics.ON) return heal(heal);
+        long start = System.nanoTime();
+        int revived = heal(heal);
+        Metrics.record(Metrics.HEALING, System.nanoTime() - start);
+        return revived;
+    }
 
-            DeadCard dc = (DeadCard) n.element;
-            int need = dc.getHmissing();
+    private int heal(int heal) {
+        int revived = 0;
 
-            discardPile.delete(dc);
+        // FULL: max Hmissing that is <= current heal, again until no more fits; the pile
+        // resolves the whole budget in one pass and hands back the cards in revive order
+        if (revivedCards.length < discardPileSize) {
+            revivedCards = new DeadCard[Math.max(discardPileSize, 2 * revivedCards.length)];
+        }
+        int taken = discardPile.takeFull(heal, revivedCards);
+        for (int i = 0; i < taken; i++) {
+            DeadCard dc = own(revivedCards[i]);
+            revivedCards[i] = null;
+            heal -= dc.getHmissing();
             discardPileSize--;
 
             dc.applyFullRevive();
 
             Card ref = dc.getRef();
             ref.setEntryOrder(++entryOrderCounter);
-            deck.insert(ref);
+            queueForDeck(ref);
             deckSize++;
 
-            heal -= need;
             revived++;
-
-            if (discardPile.root == null) break;
         }
 
         // PARTIAL: if heal remains, apply to the smallest Hmissing card (single target)
-        if (heal > 0 && discardPile.root != null) {
-            Node m = discardPile.findMin(discardPile.root);   // smallest Hmissing node
-            if (m != null) {
-                DeadCard dc = (DeadCard) m.element;
-
-                // Remove first since its key (Hmissing) will change
-                discardPile.delete(dc);
+        if (heal > 0 && !discardPile.isEmpty()) {
+            // Its key (Hmissing) changes but it stays the pile minimum, so it is put back on
+            // the left spine without a search, in place unless the delete would rotate
+            // (see DiscardAVL.replaceMin)
+            DeadCard dc = own(discardPile.minMissing());
 
-                dc.applyPartial(heal);
+            dc.applyPartial(heal);
 
-                dc.setDeathOrder(++discardentryOrderCounter);
-                discardPile.insert(dc);
+            dc.setDeathOrder(++discardentryOrderCounter);
+            discardPile.replaceMin(dc);
 
-                heal = 0; // remaining heal is fully consumed by this single partial revive
-            }
+            heal = 0; // remaining heal is fully consumed by this single partial revive
         }
 
         return revived;
     }
 
 
-    public String deckCount(){
-        return "Number of cards in the deck: " + this.deckSize;
+    public void deckCount() throws IOException {
+        out.write(DECK_COUNT).integer(this.deckSize).newline();
     }
 
-    public String findWinning(){
+    public void findWinning() throws IOException {
         if (survivorPts >= strangerPts)
-            return "The Survivor, Score: " + survivorPts;
+            out.write(SURVIVOR_WINS).integer(survivorPts).newline();
         else
-            return "The Stranger, Score: " + strangerPts;
+            out.write(STRANGER_WINS).integer(strangerPts).newline();
     }
 
-    public String steal_card(int att, int hp) {
-        if (deck.root == null) return "No card to steal";
+    public void steal_card(int att, int hp) throws IOException {
+        flushDraws();
 
-        Node band = deck.firstBandGreaterThan(att); // find first attack band with A > att
-        while (band != null) {
-            HealthAVL inner = deck.innerOf(band);
-            Card pick = inner.minStrictGreaterH(hp); // pick the smallest H with H > hp
-            if (pick != null) {
-                deck.deleteCard(pick);               // remove from the correct inner tree/band
-                deckSize--;
-                return "The Stranger stole the card: " + pick.getName();
-            }
-            band = deck.nextBand(band);
+        // Smallest A band with A > att holding some H > hp; pick the smallest such H there
+        Card pick = deck.isEmpty() ? null : deck.findForSteal(att, hp);
+        if (pick == null) {
+            out.write(NO_STEAL).newline();
+            return;
         }
-        return "No card to steal";
+
+        deck.delete(pick);                       // remove from the correct inner tree/band
+        if (names != null) names.remove(pick);
+        deckSize--;
+        out.write(STOLE).name(pick.getName()).newline();
     }
 
     // Query: discard_pile_count (Type-2)
-    public String discardPileCount(){
-        return "Number of cards in the discard pile: "+ discardPileSize;
+    public void discardPileCount() throws IOException {
+        out.write(DISCARD_COUNT).integer(discardPileSize).newline();
+    }
+
+    // Query: deck_rank <name>. Rank (1 = strongest) of the strongest deck card with that name
+    public void deckRank(String name) throws IOException {
+        flushDraws();
+        if (names == null) {
+            names = new NameIndex();
+            Card[] cards = new Card[deck.cardCount()];
+            int n = deck.dumpInOrder(cards, 0);
+            for (int i = 0; i < n; i++) names.add(cards[i]);
+        }
+        Card card = names.strongest(name);
+        if (card == null) {
+            out.write(NO_CARD_NAMED).name(name).write(IN_THE_DECK).newline();
+            return;
+        }
+        out.write(DECK_RANK_OF).name(name).write(COLON).integer(deck.rankOf(card))
+                .write(OF).integer(deck.cardCount()).newline();
+    }
+
+    // Query: kth_strongest <k>. Deck order is the strength order: attack, health, entry order
+    public void kthStrongest(int k) throws IOException {
+        flushDraws();
+        Card card = deck.kthStrongest(k);
+        if (card == null) {
+            out.write(NO_CARD_AT_RANK).integer(k).newline();
+            return;
+        }
+        out.write(STRONGEST_CARD).integer(k).write(COLON).name(card.getName())
+                .write(ATTACK).integer(card.getAcur())
+                .write(HEALTH).integer(card.getHcur()).newline();
+    }
+
+    // Query: deck_percentile <att>. Share of the deck with attack below att (floored percent)
+    public void deckPercentile(int att) throws IOException {
+        flushDraws();
+        int below = deck.countAttackBelow(att);
+        int total = deck.cardCount();
+        int percent = (total == 0) ? 0 : (int) (100L * below / total);
+        out.write(ATTACK_BELOW).integer(att).write(COLON).integer(below)
+                .write(OF).integer(total).write(OPEN).integer(percent).write(PERCENT).newline();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Load generator for GameServer.
+ *
+ * Usage: java GameLoadClient <port | unix:socket_path> <script_file> <clients> [sessions] [lines]
+ *
+ * Starts 'clients' concurrent connections at once. Each plays 'sessions' sessions (default 1)
+ * one after another, and a session sends the first 'lines' commands of the script (default
+ * all), one line at a time, waiting for the response line of each. Reports sessions/s,
+ * commands/s, and percentiles of the command round-trip time and of the whole session
+ * time. Scripts come from WorkloadGenerator or the test inputs (snapshot commands are
+ * refused by the server).
+ */
+public class GameLoadClient {
+
+    // One client thread: its sessions and what they measured
+    private static class Client extends Thread {
+        final Metrics.Histogram commands = new Metrics.Histogram();
+        final Metrics.Histogram sessions = new Metrics.Histogram();
+        long errors;
+
+        private final SocketAddress address;
+        private final byte[][] script;
+        private final int sessionCount;
+        private final CountDownLatch start;
+
+        Client(SocketAddress address, byte[][] script, int sessionCount, CountDownLatch start) {
+            super(null, null, "load-client", 256 * 1024);
+            this.address = address;
+            this.script = script;
+            this.sessionCount = sessionCount;
+            this.start = start;
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (int s = 0; s < sessionCount; s++) {
+                long begin = System.nanoTime();
+                try {
+                    playSession();
+                    sessions.record(System.nanoTime() - begin);
+                } catch (IOException e) {
+                    errors++;
+                }
+            }
+        }
+
+        private void playSession() throws IOException {
+            try (SocketChannel ch = SocketChannel.open(address)) {
+                if (address instanceof InetSocketAddress) ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                OutputStream out = Channels.newOutputStream(ch);
+                InputStream in = new BufferedInputStream(Channels.newInputStream(ch));
+                for (byte[] line : script) {
+                    long sent = System.nanoTime();
+                    out.write(line);
+                    // Exactly one response line per command
+                    int b;
+                    while ((b = in.read()) != '\n') {
+                        if (b < 0) throw new EOFException("Session closed by the server");
+                    }
+                    commands.record(System.nanoTime() - sent);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3 || args.length > 5) {
+            System.out.println("Usage: java GameLoadClient <port | unix:socket_path> <script_file> <clients> [sessions] [lines]");
+            return;
+        }
+        SocketAddress address = args[0].startsWith("unix:")
+                ? UnixDomainSocketAddress.of(args[0].substring(5))
+                : new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0]));
+        int clients = Integer.parseInt(args[2]);
+        int sessionsPerClient = (args.length > 3) ? Integer.parseInt(args[3]) : 1;
+        int maxLines = (args.length > 4) ? Integer.parseInt(args[4]) : Integer.MAX_VALUE;
+        byte[][] script = readScript(Path.of(args[1]), maxLines);
+
+        CountDownLatch start = new CountDownLatch(1);
+        Client[] threads = new Client[clients];
+        for (int i = 0; i < clients; i++) {
+            threads[i] = new Client(address, script, sessionsPerClient, start);
+            threads[i].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        Metrics.Histogram commands = new Metrics.Histogram();
+        Metrics.Histogram sessions = new Metrics.Histogram();
+        long errors = 0;
+        for (Client c : threads) {
+            c.join();
+            commands.add(c.commands);
+            sessions.add(c.sessions);
+            errors += c.errors;
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        System.out.printf("%d clients x %d sessions x %d commands in %.3f s%n",
+                clients, sessionsPerClient, script.length, seconds);
+        System.out.printf("%.1f sessions/s, %.0f commands/s, %d failed sessions%n",
+                sessions.count() / seconds, commands.count() / seconds, errors);
+        print("command round trip", commands);
+        print("session", sessions);
+    }
+
+    private static void print(String what, Metrics.Histogram h) {
+        System.out.printf("%-18s p50 %.3f ms, p99 %.3f ms, p999 %.3f ms, max %.3f ms%n", what,
+                h.percentile(0.50) / 1e6, h.percentile(0.99) / 1e6, h.percentile(0.999) / 1e6, h.max() / 1e6);
+    }
+
+    // Non-blank lines of the script, each ending in '\n' (blank lines get no response)
+    private static byte[][] readScript(Path file, int maxLines) throws IOException {
+        byte[] all = Files.readAllBytes(file);
+        int count = 0;
+        for (int i = 0, start = 0; i <= all.length && count < maxLines; i++) {
+            if (i == all.length || all[i] == '\n') {
+                if (!isBlank(all, start, i)) count++;
+                start = i + 1;
+            }
+        }
+        byte[][] lines = new byte[count][];
+        int n = 0;
+        for (int i = 0, start = 0; i <= all.length && n < count; i++) {
+            if (i == all.length || all[i] == '\n') {
+                if (!isBlank(all, start, i)) {
+                    byte[] line = new byte[i - start + 1];
+                    System.arraycopy(all, start, line, 0, i - start);
+                    line[i - start] = '\n';
+                    lines[n++] = line;
+                }
+                start = i + 1;
+            }
+        }
+        return lines;
+    }
+
+    private static boolean isBlank(byte[] a, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (a[i] > ' ') return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,148 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hosts live Nightpass games over a local socket, one Game per connection.
+ *
+ * Usage: java GameServer <port | unix:socket_path> [deck_engine]
+ *
+ * A TCP server binds the loopback address only. A session speaks the command file
+ * language, one command per line, and gets exactly the response lines Main would write to
+ * its output file. Responses are flushed whenever the session has executed every complete
+ * line received so far, so clients may send one line at a time or pipeline a whole script.
+ * An unknown command ends the session with "Invalid command: <name>", as it ends Main.
+ * save_snapshot and load_snapshot are refused the same way: a remote client must not
+ * read or write files on the server. A line of MAX_LINE bytes or more without its '\n'
+ * ends the session with "Line too long, limit is <MAX_LINE> bytes".
+ *
+ * Sessions share nothing: each has its own Game, pools and buffers, and runs on its own
+ * thread (thread per session; the executor is the only place to change for another
+ * threading model). With -Dnightpass.metrics on, the counters and histograms are totals
+ * over all sessions (see Metrics).
+ * Measure with GameLoadClient.
+ */
+public class GameServer {
+
+    private static final byte[] INVALID = ResponseEncoder.fragment("Invalid command: ");
+    private static final byte[] LINE_TOO_LONG = ResponseEncoder.fragment("Line too long, limit is ");
+    private static final byte[] BYTES = ResponseEncoder.fragment(" bytes");
+
+    // Longest request line a session buffers; a longer one ends the session
+    private static final int MAX_LINE = 1 << 16;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Usage: java GameServer <port | unix:socket_path> [deck_engine]");
+            return;
+        }
+        String engine = (args.length > 1) ? args[1] : DeckEngine.DEFAULT;
+        DeckEngine.create(engine, new NodePool(2)); // fail now on an unknown engine
+
+        ServerSocketChannel server;
+        if (args[0].startsWith("unix:")) {
+            Path path = Path.of(args[0].substring(5));
+            Files.deleteIfExists(path);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            server.bind(UnixDomainSocketAddress.of(path));
+        } else {
+            server = ServerSocketChannel.open();
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[0])), 1024);
+        }
+        System.out.println("Nightpass server on " + server.getLocalAddress() + " (deck " + engine + ")");
+
+        ExecutorService sessions = Executors.newCachedThreadPool();
+        try {
+            while (true) {
+                SocketChannel client = server.accept();
+                // One small response per request line: do not let Nagle hold it back
+                if (client.getLocalAddress() instanceof InetSocketAddress) {
+                    client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+                sessions.execute(() -> serve(client, engine));
+            }
+        } finally {
+            sessions.shutdown();
+            server.close();
+        }
+    }
+
+    // Plays one connection's game until the client closes it or sends an invalid command
+    private static void serve(SocketChannel client, String engine) {
+        try (SocketChannel ch = client;
+             ResponseEncoder out = new ResponseEncoder(Channels.newOutputStream(ch), 1 << 14)) {
+            Game game = new Game(out, engine);
+            ByteBuffer in = ByteBuffer.allocate(1 << 14);
+            boolean open = true;
+            while (open) {
+                open = ch.read(in) >= 0;
+                in.flip();
+                // Only complete lines run; at end of input the last line needs no '\n'
+                int end = open ? lastLineEnd(in) : in.limit();
+                if (end > in.position()) {
+                    ByteBuffer lines = in.duplicate();
+                    lines.limit(end);
+                    if (!play(game, new CommandReader(lines), out)) {
+                        out.flush();
+                        return;
+                    }
+                    out.flush();
+                    in.position(end);
+                }
+                in.compact();
+                if (!in.hasRemaining()) {
+                    // One line longer than the buffer: grow it, up to MAX_LINE
+                    if (in.capacity() >= MAX_LINE) {
+                        out.write(LINE_TOO_LONG).integer(MAX_LINE).write(BYTES).newline();
+                        out.flush();
+                        return;
+                    }
+                    ByteBuffer grown = ByteBuffer.allocate(Math.min(in.capacity() * 2, MAX_LINE));
+                    in.flip();
+                    grown.put(in);
+                    in = grown;
+                }
+            }
+        } catch (IOException e) {
+            // Client went away mid-response; nothing to clean up beyond the socket
+        }
+    }
+
+    // Runs every command of the reader; false after an invalid or refused command
+    private static boolean play(Game game, CommandReader reader, ResponseEncoder out) throws IOException {
+        int command;
+        while ((command = reader.nextCommand()) != CommandReader.END) {
+            boolean refused = command == CommandReader.SAVE_SNAPSHOT || command == CommandReader.LOAD_SNAPSHOT;
+            boolean ok;
+            try {
+                ok = !refused && game.execute(command, reader);
+            } catch (NumberFormatException e) {
+                ok = false; // malformed number argument
+            }
+            if (!ok) {
+                out.write(INVALID).name(reader.commandName()).newline();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Position just past the last '\n' in buf[position, limit), or position if there is none
+    private static int lastLineEnd(ByteBuffer buf) {
+        for (int i = buf.limit() - 1; i >= buf.position(); i--) {
+            if (buf.get(i) == '\n') return i + 1;
+        }
+        return buf.position();
+    }
+}
@@ -1,65 +1,57 @@
 public class HealthAVL extends BaseAVL {
 
-    @Override
-    protected int compareCards(Card c1, Card c2) {
-        // Compare primarily by current health (Hcur)
-        if (c1.getHcur() < c2.getHcur()) {
-            return -1;
-        } else if (c1.getHcur() > c2.getHcur()) {
-            return 1;
-        } else {
-            // Tie-breaker: by entry order (older first)
-            if (c1.getEntryOrder() < c2.getEntryOrder()) {
-                return -1;
-            } else if (c1.getEntryOrder() > c2.getEntryOrder()) {
-                return 1;
-            } else {
-                return 0;
-            }
-        }
+    // One HealthAVL serves every band of a deck: each band keeps only its inner root handle
+    public HealthAVL(NodePool pool) {
+        super(pool);
     }
 
-    // Checks if the tree is empty
-    public boolean isEmpty() {
-        return root == null;
+    // Packs (Hcur, entryOrder) so that one long comparison orders by health, then entry order
+    public static long healthKey(int hcur, int entryOrder) {
+        return ((long) hcur << 32) | (entryOrder & 0xffffffffL);
     }
 
-    // Returns the card with minimum health in this subtree
-    public Card minNode() {
-        if (root == null) return null;
-        Node cur = root;
-        Node best = null;
-        while (cur != null) {
-            best = cur;
-            cur = cur.left;
-        }
-        return best.element;
+    @Override
+    protected long keyOf(Card card) {
+        return healthKey(card.getHcur(), card.getEntryOrder());
     }
 
-    // Finds the card with the smallest Hcur strictly greater than given 'att'
-    public Card minStrictGreaterH(int att) {
-        if (root == null) return null;
+    // Returns the card with minimum health in the tree rooted at 'top'
+    public Card minNode(int top) {
+        if (top == NodePool.NIL) return null;
+        return pool.element[findMin(top)];
+    }
 
-        // Create a key card representing the lower bound (H = att+1)
-        Card key = new Card("", 0, 0, Integer.MIN_VALUE);
-        key.setHcur(att + 1);
+    // Returns the card with maximum health in the tree rooted at 'top'
+    public Card maxNode(int top) {
+        if (top == NodePool.NIL) return null;
+        int cur = top;
+        while (pool.right[cur] != NodePool.NIL) {
+            cur = pool.right[cur];
+        }
+        return pool.element[cur];
+    }
 
-        Node cur = root;
-        Node best = null;
+    // Appends the cards of the tree rooted at 'top' in order to out starting at pos;
+    // returns the next free position
+    public int dumpInOrder(int top, Card[] out, int pos) {
+        if (top == NodePool.NIL) return pos;
+        pos = dumpInOrder(pool.left[top], out, pos);
+        out[pos++] = pool.element[top];
+        return dumpInOrder(pool.right[top], out, pos);
+    }
 
-        while (cur != null) {
-            int cmp = compareCards(key, cur.element);
-            if (cmp <= 0) {
-                // Current node is a valid candidate, go left for smaller
-                best = cur;
-                cur = cur.left;
-            } else {
-                // Go right for larger values
-                cur = cur.right;
-            }
-        }
+    // True if the tree rooted at 'top' holds a card with c's health and entry order
+    public boolean contains(int top, Card c) {
+        long k = keyOf(c);
+        int hit = ceiling(top, k);
+        return hit != NodePool.NIL && pool.key[hit] == k;
+    }
 
-        return (best == null) ? null : best.element;
+    // Finds the card with the smallest Hcur strictly greater than given 'att'
+    // (ties on Hcur resolve to the smallest entry order: lower bound of key (att+1, 0))
+    public Card minStrictGreaterH(int top, int att) {
+        int best = ceiling(top, (att + 1L) << 32);
+        return (best == NodePool.NIL) ? null : pool.element[best];
     }
 
-}
\ No newline at end of file
+}
@@ -43,14 +43,13 @@
  *
  * REQUIREMENTS:
  * =============
- * - Java SDK 8+ (javac, java commands)
+ * - Java SDK 17+ (javac, java commands; or Maven: mvn package, see pom.xml)
  * - Python 3.6+ (for test runner)
  *
  * @author Ahmet Eren Aslan
  */
 
 import java.io.*;
-import java.util.Scanner;
 import java.util.ArrayList;
 import java.math.*;
 
@@ -68,109 +67,43 @@ public class Main {
         String outFile = args[1];
 
 
-        // Initialize file reader
-        Scanner reader = null;
+        // Initialize file reader (memory-mapped, tokenized byte by byte)
+        CommandReader reader = null;
         try {
-            reader = new Scanner(new File(inFile));
-        } catch (FileNotFoundException e) {
+            reader = CommandReader.open(inFile);
+        } catch (IOException e) {
             System.out.println("Input file not found: " + inFile);
             e.printStackTrace();
             return;
         }
 
-        // Initialize file writer
-        FileWriter writer = null;
+        // Initialize buffered response writer
+        ResponseEncoder writer = null;
         try {
-            writer = new FileWriter(outFile);
+            writer = new ResponseEncoder(new FileOutputStream(outFile));
         } catch (IOException e) {
             System.out.println("Writing error: " + outFile);
             e.printStackTrace();
-            if (reader != null)
-                reader.close();
+            closeQuietly(reader);
             return;
         }
 
 
         // Process commands line by line
+        long lines = 0;
+        long startNanos = System.nanoTime();
+        Game game = null;
         try {
-            Game game = new Game();
-            while (reader.hasNext()) {
-                String line = reader.nextLine();
-                Scanner scanner = new Scanner(line);
-                String command = scanner.next();
-                String out = "";
-
-                switch (command) {
-                    case "draw_card": {
-                        String name = "";
-                        int att = 0;
-                        int hp = 0;
-                        if (scanner.hasNext())
-                            name = scanner.next();
-                        if (scanner.hasNext())
-                            att = scanner.nextInt();
-                        if (scanner.hasNext())
-                            hp = scanner.nextInt();
-                        out = game.draw_card(name, att, hp); // suggested method for draw_card command
-                        break;
-                    }
-                    case "battle": {
-                        int att = 0;
-                        int hp = 0;
-                        int heal = 0;
-                        if (scanner.hasNext())
-                            att = scanner.nextInt();
-                        if (scanner.hasNext())
-                            hp = scanner.nextInt();
-                        if (scanner.hasNext())
-                            heal = scanner.nextInt();
-                        out = game.battle(att, hp, heal); // suggested method for battle command
-                        break;
-                    }
-                    case "find_winning": {
-                        out = game.findWinning(); // suggested method for find_winning command
-                        break;
-                    }
-                    case "deck_count": {
-                        out = game.deckCount(); // suggested method for deck_count command
-                        break;
-                    }
-
-
-                     case "discard_pile_count": {
-                        out = game.discardPileCount(); // suggested method for discard_pile_count command
-                        break;
-                     }
-
-                    case "steal_card": {
-                        int att = 0;
-                        int hp = 0;
-                        if (scanner.hasNext())
-                            att = scanner.nextInt();
-                        if (scanner.hasNext())
-                            hp = scanner.nextInt();
-                        out = game.steal_card(att, hp); // suggested method for steal_card command
-                        break;
-                    }
-                    default: {
-                        System.out.println("Invalid command: " + command);
-                        scanner.close();
-                        writer.close();
-                        reader.close();
-                        return;
-                    }
-                }
-
-                scanner.close();
-
-                try {
-                    writer.write(out);
-                    writer.write("\n");
-                    // uncomment if each output needs to be in a new line and
-                    // you did not implement that inside the functions.
-                } catch (IOException e2) {
-                    System.out.println("Writing error");
-                    e2.printStackTrace();
+            game = new Game(writer);
+            int command;
+            while ((command = reader.nextCommand()) != CommandReader.END) {
+                lines++;
+
+                if (!game.execute(command, reader)) {
+                    System.out.println("Invalid command: " + reader.commandName());
+                    writer.close();
+                    reader.close();
+                    return;
                 }
             }
 
@@ -178,6 +111,7 @@ public class Main {
             System.out.println("Error processing commands: " + e.getMessage());
             e.printStackTrace();
         }
+        long elapsedNanos = System.nanoTime() - startNanos;
 
         // Clean up resources
         try {
@@ -187,8 +121,21 @@ public class Main {
             e2.printStackTrace();
         }
 
-        if (reader != null) {
-            reader.close();
+        closeQuietly(reader);
+
+        // Throughput goes to stderr so stdout stays exactly as before
+        double seconds = elapsedNanos / 1e9;
+        System.err.printf("%d lines in %.3f s (%.0f lines/s)%n",
+                lines, seconds, (seconds > 0) ? lines / seconds : 0.0);
+
+        // Latency histograms and tree counters, only with -Dnightpass.metrics=true
+        if (Metrics.ON && game != null) {
+            try {
+                Metrics.write(lines, elapsedNanos, game);
+            } catch (IOException e) {
+                System.out.println("Writing error: " + Metrics.FILE);
+                e.printStackTrace();
+            }
         }
 
         System.out.println("end");
@@ -197,4 +144,13 @@ public class Main {
 
     }
 
-}
\ No newline at end of file
+    private static void closeQuietly(CommandReader reader) {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            System.out.println("Closing error");
+            e.printStackTrace();
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional instrumentation of the simulator: per-command latency histograms plus tree
+ * operation counters, written as JSON when the run ends.
+ *
+ * Off unless started with -Dnightpass.metrics=true (the file defaults to metrics.json,
+ * -Dnightpass.metrics.file=... to change it). ON is a static final constant, so with
+ * recording off every "if (Metrics.ON)" block is removed by the JIT and costs nothing.
+ * Everything here is process-wide and thread-safe: counters are LongAdders and histograms
+ * lock on record, so games running in parallel (Tournament, GameServer sessions) add to the
+ * same totals; only a single game (Main) gets numbers that describe that game alone.
+ */
+public final class Metrics {
+
+    public static final boolean ON = Boolean.getBoolean("nightpass.metrics");
+    public static final String FILE = System.getProperty("nightpass.metrics.file", "metrics.json");
+
+    // Latency histograms, indexed by CommandReader code; HEALING is the healing phase of battles
+    public static final int HEALING = 0;
+    private static final String[] NAMES = {
+            "healing", "draw_card", "battle", "find_winning", "deck_count", "discard_pile_count",
+            "steal_card", "save_snapshot", "load_snapshot", "deck_rank", "kth_strongest",
+            "deck_percentile",
+    };
+    private static final Histogram[] LATENCY = new Histogram[NAMES.length];
+
+    static {
+        for (int i = 0; i < LATENCY.length; i++) LATENCY[i] = new Histogram();
+    }
+
+    // Tree operation counters, summed over every thread
+    public static final LongAdder rotations = new LongAdder();   // BaseAVL single rotations (a double rotation counts 2)
+    public static final LongAdder comparisons = new LongAdder(); // Key comparisons of BaseAVL descents
+    public static final LongAdder bandWalks = new LongAdder();   // Band nodes visited by AttackAVL updates and queries
+
+    private Metrics() {
+    }
+
+    // Adds one timed command (or healing phase) of the given code
+    public static void record(int code, long nanos) {
+        if (code >= 0 && code < LATENCY.length) LATENCY[code].record(nanos);
+    }
+
+    /**
+     * Log-linear histogram of nanosecond latencies: 16 linear sub-buckets per power of two,
+     * so a percentile is read back within 1/16 of the true value in O(buckets) time and the
+     * whole histogram is one fixed long[] however many values are recorded. Updates and
+     * reads lock on the histogram, so several threads may record into one.
+     */
+    static final class Histogram {
+
+        private static final int SUB_BITS = 4;
+        private static final int SUB = 1 << SUB_BITS;
+
+        private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB];
+        private long total;
+        private long max;
+        private long sum;
+
+        synchronized void record(long v) {
+            if (v < 0) v = 0;
+            counts[index(v)]++;
+            total++;
+            sum += v;
+            if (v > max) max = v;
+        }
+
+        private static int index(long v) {
+            if (v < SUB) return (int) v;
+            int exp = 63 - Long.numberOfLeadingZeros(v);        // >= SUB_BITS
+            int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+            return (exp - SUB_BITS + 1) * SUB + sub;
+        }
+
+        // Largest value that falls into bucket i
+        private static long upperBound(int i) {
+            if (i < SUB) return i;
+            int exp = i / SUB + SUB_BITS - 1;
+            long sub = i % SUB;
+            return ((SUB + sub + 1) << (exp - SUB_BITS)) - 1;
+        }
+
+        // Merges another histogram into this one (per-thread histograms)
+        synchronized void add(Histogram other) {
+            for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+            total += other.total;
+            sum += other.sum;
+            max = Math.max(max, other.max);
+        }
+
+        synchronized long count() {
+            return total;
+        }
+
+        synchronized long mean() {
+            return (total == 0) ? 0 : sum / total;
+        }
+
+        synchronized long max() {
+            return max;
+        }
+
+        // Value at quantile q (0..1): upper bound of the bucket holding that rank
+        synchronized long percentile(double q) {
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(upperBound(i), max);
+            }
+            return max;
+        }
+    }
+
+    /**
+     * Writes every histogram and counter plus the given final tree shape to FILE.
+     * Latencies are in nanoseconds.
+     */
+    public static void write(long lines, long elapsedNanos, Game game) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(FILE))) {
+            out.println("{");
+            out.printf("  \"lines\": %d,%n", lines);
+            out.printf("  \"elapsed_ns\": %d,%n", elapsedNanos);
+            out.println("  \"latency_ns\": {");
+            boolean first = true;
+            for (int i = 0; i < LATENCY.length; i++) {
+                Histogram h = LATENCY[i];
+                if (h.count() == 0) continue;
+                if (!first) out.println(",");
+                first = false;
+                out.printf("    \"%s\": {\"count\": %d, \"mean\": %d, \"p50\": %d, \"p99\": %d, "
+                                + "\"p999\": %d, \"max\": %d}",
+                        NAMES[i], h.count(), h.mean(), h.percentile(0.50), h.percentile(0.99),
+                        h.percentile(0.999), h.max());
+            }
+            out.println();
+            out.println("  },");
+            out.println("  \"counters\": {");
+            out.printf("    \"rotations\": %d,%n", rotations.sum());
+            out.printf("    \"comparisons\": %d,%n", comparisons.sum());
+            out.printf("    \"band_walks\": %d%n", bandWalks.sum());
+            out.println("  },");
+            out.println("  \"shape\": {");
+            out.printf("    \"deck_cards\": %d,%n", game.deckCardCount());
+            out.printf("    \"deck_bands\": %d,%n", game.deckBandCount());
+            out.printf("    \"deck_height\": %d,%n", game.deckHeight());
+            out.printf("    \"discard_size\": %d,%n", game.discardSize());
+            out.printf("    \"discard_height\": %d%n", game.discardHeight());
+            out.println("  }");
+            out.println("}");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Card lookup by name for the deck rank queries.
+ *
+ * Open addressing over the names; each name keeps its deck cards laid out like the deck itself:
+ * a tree of attack bands whose nodes hold the root of an inner health tree, so the cards are in
+ * deck order and the strongest one is the last card of the last band. Game reports every card
+ * entering and leaving the deck (add / remove, O(log m) for m cards with that name), and a
+ * deck_rank query costs one hash lookup, O(log m) to the strongest card and deck.rankOf, O(log n).
+ */
+public class NameIndex {
+
+    // Attack bands of one name's cards; the payload is the inner root (BandPool.inner)
+    private static final class NameBands extends BaseAVL {
+
+        NameBands(BandPool pool) {
+            super(pool);
+        }
+
+        @Override
+        protected long keyOf(Card card) {
+            return card.getAcur();
+        }
+    }
+
+    private final BandPool bandPool = new BandPool(64);
+    private final NameBands bands = new NameBands(bandPool);
+    private final HealthAVL inner = new HealthAVL(new NodePool(64));
+
+    private String[] names;
+    private int[] roots;      // Root of the band tree of names[i] (NIL once all its cards left)
+    private int used = 0;
+
+    public NameIndex() {
+        names = new String[64];
+        roots = new int[64];
+    }
+
+    // Slot of name, or the empty slot where it would go
+    private int slotOf(String name) {
+        int mask = names.length - 1;
+        int i = name.hashCode() & mask;
+        while (names[i] != null && !names[i].equals(name)) i = (i + 1) & mask;
+        return i;
+    }
+
+    // Band node of attack A in the band tree under top, or NIL
+    private int bandOf(int top, int A) {
+        int band = bands.floor(top, A);
+        return (band != NodePool.NIL && bandPool.key[band] == A) ? band : NodePool.NIL;
+    }
+
+    // Registers a card entering the deck
+    public void add(Card c) {
+        int i = slotOf(c.getName());
+        if (names[i] == null) {
+            if (2 * (used + 1) > names.length) {
+                rehash(names.length * 2);
+                i = slotOf(c.getName());
+            }
+            names[i] = c.getName();
+            used++;
+        }
+        int A = c.getAcur();
+        int band = bandOf(roots[i], A);
+        if (band == NodePool.NIL) {
+            // The band trees are never forked, so the new node keeps its handle when linked
+            band = bands.allocNode(A, null);
+            bandPool.inner[band] = NodePool.NIL;
+            roots[i] = bands.insertNode(roots[i], band);
+        }
+        bandPool.inner[band] = inner.insertAt(bandPool.inner[band], c);
+    }
+
+    // Unregisters a card leaving the deck; call it before the card changes
+    public void remove(Card c) {
+        int i = slotOf(c.getName());
+        if (names[i] == null) return;
+        int A = c.getAcur();
+        int band = bandOf(roots[i], A);
+        if (band == NodePool.NIL) return;
+        int top = inner.deleteAt(bandPool.inner[band], inner.keyOf(c));
+        bandPool.inner[band] = top;
+        if (top == NodePool.NIL) roots[i] = bands.deleteAt(roots[i], A);
+    }
+
+    // The strongest card in the deck with this name (lowest rank), or null
+    public Card strongest(String name) {
+        int i = slotOf(name);
+        if (names[i] == null || roots[i] == NodePool.NIL) return null;
+        int band = roots[i];
+        while (bandPool.right[band] != NodePool.NIL) band = bandPool.right[band];
+        return inner.maxNode(bandPool.inner[band]);
+    }
+
+    private void rehash(int cap) {
+        String[] oldNames = names;
+        int[] oldRoots = roots;
+        names = new String[cap];
+        roots = new int[cap];
+        for (int j = 0; j < oldNames.length; j++) {
+            if (oldNames[j] == null) continue;
+            int i = slotOf(oldNames[j]);
+            names[i] = oldNames[j];
+            roots[i] = oldRoots[j];
+        }
+    }
+}
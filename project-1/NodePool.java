@@ -0,0 +1,202 @@
+import java.lang.ref.WeakReference;
+
+public class NodePool {
+
+    // Handle 0 is a sentinel "null" node: no children, height 0
+    public static final int NIL = 0;
+
+    // Node columns, indexed by node handle
+    public int[] left;
+    public int[] right;
+    public byte[] height;
+    public int[] subSize;     // Nodes in the subtree (0 for NIL), for order statistics
+    public long[] key;        // Ordering key, precomputed by the owning tree
+    public Card[] element;
+    public int[] gen;         // Generation of the tree branch that created the node (see BaseAVL)
+
+    private int top = 1;          // Next never-used handle
+    private int freeHead = NIL;   // Recycled handles, chained through left[]
+    private int live = 0;
+    private int lastGeneration = 0;
+
+    // Reclaiming shared nodes. After a fork a branch never frees a node it did not create
+    // (the other branch may still use it), so nodes every branch has dropped stay allocated.
+    // collect() finds them by marking what each owner (a tree or deck holding handles into
+    // this pool) still reaches. Owners are held weakly: a branch nobody uses any more stops
+    // keeping its nodes. Pools that were never forked free everything eagerly and skip this
+    public interface Owner {
+        // Calls pool.markTree on every root this owner holds in 'pool'
+        void markNodes(NodePool pool);
+    }
+
+    private static final int COLLECT_MIN = 4096;   // No collection below this many live nodes
+
+    private WeakReference<Owner>[] owners = newOwners(4);
+    private int ownerCount = 0;
+    private boolean forked = false;
+    private int liveAfterCollect = 0;
+    private long[] marks;                          // Mark bits during collect, else null
+
+    public NodePool(int capacity) {
+        int cap = Math.max(capacity, 2);
+        left = new int[cap];
+        right = new int[cap];
+        height = new byte[cap];
+        subSize = new int[cap];
+        key = new long[cap];
+        element = new Card[cap];
+        gen = new int[cap];
+    }
+
+    // Number of nodes currently in use
+    public int size() {
+        return live;
+    }
+
+    // Fresh generation number for a tree (branch) working on this pool
+    public int newGeneration() {
+        return ++lastGeneration;
+    }
+
+    // Takes a fresh leaf node with key k holding e, reusing a released handle when possible
+    public int alloc(long k, Card e) {
+        int n;
+        if (freeHead != NIL) {
+            n = freeHead;
+            freeHead = left[n];
+        } else {
+            if (top == left.length) grow(left.length * 2);
+            n = top++;
+        }
+        left[n] = NIL;
+        right[n] = NIL;
+        height[n] = 1;
+        subSize[n] = 1;
+        key[n] = k;
+        element[n] = e;
+        live++;
+        return n;
+    }
+
+    // Registers a holder of handles into this pool (see collect)
+    public void addOwner(Owner owner) {
+        if (ownerCount == owners.length) {
+            WeakReference<Owner>[] grown = newOwners(ownerCount * 2);
+            System.arraycopy(owners, 0, grown, 0, ownerCount);
+            owners = grown;
+        }
+        owners[ownerCount++] = new WeakReference<>(owner);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WeakReference<Owner>[] newOwners(int n) {
+        return (WeakReference<Owner>[]) new WeakReference<?>[n];
+    }
+
+    // Called when a tree on this pool is forked: from now on nodes may be shared
+    public void noteFork() {
+        forked = true;
+        liveAfterCollect = Math.max(liveAfterCollect, live);
+    }
+
+    // Collects if the pool was forked and has at least doubled since the last collection,
+    // so the O(capacity) sweep is amortized over the allocations in between. Only call it
+    // between operations, when every owner's handles are linked into its trees
+    public boolean collectIfDue() {
+        if (!forked || live < COLLECT_MIN || live < 2 * liveAfterCollect) return false;
+        collect();
+        return true;
+    }
+
+    // Releases every node no live owner reaches; returns how many were released
+    public int collect() {
+        marks = new long[(top + 63) >>> 6];
+        int kept = 0;
+        for (int i = 0; i < ownerCount; i++) {
+            Owner o = owners[i].get();
+            if (o == null) continue;
+            o.markNodes(this);
+            owners[kept++] = owners[i];
+        }
+        for (int i = kept; i < ownerCount; i++) owners[i] = null;
+        ownerCount = kept;
+
+        for (int n = freeHead; n != NIL; n = left[n]) setMark(n); // already free
+        int released = 0;
+        for (int n = 1; n < top; n++) {
+            if (!isMarked(n)) {
+                release(n);
+                released++;
+            }
+        }
+        marks = null;
+        liveAfterCollect = live;
+        return released;
+    }
+
+    // Marks the subtree under node (during collect); stops at nodes already marked, so a
+    // subtree shared by several owners is walked once
+    public void markTree(int node) {
+        if (node == NIL || isMarked(node)) return;
+        setMark(node);
+        markTree(left[node]);
+        markTree(right[node]);
+    }
+
+    private boolean isMarked(int n) {
+        return (marks[n >>> 6] & (1L << n)) != 0;
+    }
+
+    private void setMark(int n) {
+        marks[n >>> 6] |= 1L << n;
+    }
+
+    // Returns a node to the free list
+    public void release(int n) {
+        element[n] = null; // drop the reference so the card can be collected
+        right[n] = NIL;
+        left[n] = freeHead;
+        freeHead = n;
+        live--;
+    }
+
+    // Moves the payload (everything but links and height) of one node into another;
+    // used when delete replaces a node by its inorder successor
+    public void copyPayload(int from, int to) {
+        key[to] = key[from];
+        element[to] = element[from];
+    }
+
+    // Copies a whole node (links, height, payload and aggregates); used for path copying.
+    // Subclasses with aggregate columns extend this
+    public void copyNode(int from, int to) {
+        left[to] = left[from];
+        right[to] = right[from];
+        height[to] = height[from];
+        subSize[to] = subSize[from];
+        copyPayload(from, to);
+    }
+
+    // Enlarges every column; subclasses extend this for their extra columns
+    protected void grow(int cap) {
+        left = copyOf(left, cap);
+        right = copyOf(right, cap);
+        byte[] h = new byte[cap];
+        System.arraycopy(height, 0, h, 0, height.length);
+        height = h;
+        subSize = copyOf(subSize, cap);
+        long[] k = new long[cap];
+        System.arraycopy(key, 0, k, 0, key.length);
+        key = k;
+        Card[] e = new Card[cap];
+        System.arraycopy(element, 0, e, 0, element.length);
+        element = e;
+        gen = copyOf(gen, cap);
+    }
+
+    protected static int[] copyOf(int[] a, int cap) {
+        int[] b = new int[cap];
+        System.arraycopy(a, 0, b, 0, a.length);
+        return b;
+    }
+}
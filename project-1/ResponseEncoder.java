@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered writer for Game responses.
+ *
+ * Fixed message fragments are pre-encoded once (see fragment()), card names and ints
+ * are encoded straight into one reusable byte buffer, and the buffer goes to the
+ * underlying stream only when full or on flush. Names are written in UTF-8, the charset
+ * CommandReader decodes them with, so a name comes back with the bytes it was read with.
+ */
+public class ResponseEncoder implements AutoCloseable {
+
+    private static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    private final OutputStream out;
+    private final byte[] buf;
+    private int count = 0;
+
+    public ResponseEncoder(OutputStream out) {
+        this(out, 1 << 16);
+    }
+
+    public ResponseEncoder(OutputStream out, int capacity) {
+        this.out = out;
+        this.buf = new byte[capacity];
+    }
+
+    // Pre-encodes a constant message fragment
+    public static byte[] fragment(String s) {
+        return s.getBytes(CHARSET);
+    }
+
+    private void ensure(int n) throws IOException {
+        if (count + n > buf.length) flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buf, 0, count);
+            count = 0;
+        }
+    }
+
+    public ResponseEncoder write(byte[] bytes) throws IOException {
+        if (bytes.length > buf.length) {
+            flushBuffer();
+            out.write(bytes);
+            return this;
+        }
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, count, bytes.length);
+        count += bytes.length;
+        return this;
+    }
+
+    // Card name: byte-per-char fast path for ASCII names (the same bytes in UTF-8),
+    // charset encoder otherwise
+    public ResponseEncoder name(String s) throws IOException {
+        int len = s.length();
+        if (len <= buf.length) {
+            ensure(len);
+            int i = 0;
+            while (i < len) {
+                char c = s.charAt(i);
+                if (c >= 0x80) break;
+                buf[count + i] = (byte) c;
+                i++;
+            }
+            if (i == len) {
+                count += len;
+                return this;
+            }
+        }
+        return write(s.getBytes(CHARSET));
+    }
+
+    // Decimal int without going through a String
+    public ResponseEncoder integer(int v) throws IOException {
+        ensure(11);
+        if (v == Integer.MIN_VALUE) {
+            return write(fragment(Integer.toString(v)));
+        }
+        if (v < 0) {
+            buf[count++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        for (int t = v; t >= 10; t /= 10) digits++;
+        int end = count + digits;
+        for (int i = end - 1; i >= count; i--) {
+            buf[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        count = end;
+        return this;
+    }
+
+    public ResponseEncoder newline() throws IOException {
+        ensure(1);
+        buf[count++] = '\n';
+        return this;
+    }
+
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
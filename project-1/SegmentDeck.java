@@ -0,0 +1,367 @@
+/**
+ * Deck engine backed by a sparse (dynamic) segment tree over the whole int attack domain.
+ *
+ * Every leaf is one attack value and holds the root of that value's HealthAVL, exactly like
+ * an AttackAVL band; internal nodes exist only above non-empty leaves and keep min/max
+ * health over their range. The tree has a fixed depth of 32, so every priority query is
+ * one pruned descent of at most 2 * 32 nodes plus one inner-tree search, worst case, with
+ * no rebalancing on update. Nodes carry generations for persistent forks like BaseAVL.
+ */
+public class SegmentDeck implements DeckEngine, SegmentPool.Owner {
+
+    private static final int NIL = SegmentPool.NIL;
+    private static final int DEPTH = 32;            // Leaves sit 32 levels below the root
+
+    private final SegmentPool seg;
+    private final HealthAVL inner;  // Operates on every leaf's inner tree in the card pool
+    private int root = NIL;
+    private int gen;
+    private int cardCount = 0;
+
+    // Root-to-leaf path of the last update: path[d] is the node at depth d
+    private final int[] path = new int[DEPTH + 1];
+
+    public SegmentDeck(NodePool cards) {
+        this.seg = new SegmentPool(256);
+        this.inner = new HealthAVL(cards);
+        this.gen = seg.newGeneration();
+        seg.addOwner(this);
+        cards.addOwner(this);
+    }
+
+    // Branch sharing both pools and every current node with 'from' (see fork)
+    private SegmentDeck(SegmentDeck from) {
+        this.seg = from.seg;
+        this.inner = new HealthAVL(from.inner.pool);
+        this.gen = seg.newGeneration();
+        this.root = from.root;
+        this.cardCount = from.cardCount;
+        seg.addOwner(this);
+        inner.pool.addOwner(this);
+    }
+
+    @Override
+    public SegmentDeck fork() {
+        gen = seg.newGeneration();
+        seg.noteFork();
+        inner.freeze();
+        return new SegmentDeck(this);
+    }
+
+    @Override
+    public void reclaim() {
+        seg.collectIfDue();
+    }
+
+    @Override
+    public void markNodes(SegmentPool p) {
+        p.markTree(root);
+    }
+
+    // Inner trees of every leaf, in the card pool
+    @Override
+    public void markNodes(NodePool p) {
+        markInner(p, root, DEPTH);
+    }
+
+    private void markInner(NodePool p, int node, int levels) {
+        if (node == NIL) return;
+        if (levels == 0) {
+            p.markTree(seg.inner[node]);
+            return;
+        }
+        markInner(p, seg.lo[node], levels - 1);
+        markInner(p, seg.hi[node], levels - 1);
+    }
+
+    // Attack value as an unsigned 32-bit leaf position (keeps int order)
+    private static long pos(long A) {
+        return A - Integer.MIN_VALUE;
+    }
+
+    // A node this deck may modify: fresh for NIL, a copy if shared, the node itself otherwise
+    private int own(int node) {
+        if (node == NIL) return seg.alloc(gen);
+        if (seg.gen[node] == gen) return node;
+        int copy = seg.alloc(gen);
+        seg.copyNode(node, copy);
+        return copy;
+    }
+
+    // Makes the whole root path to leaf p private (creating missing nodes) and records it
+    private int ownPath(long p) {
+        root = own(root);
+        int node = root;
+        path[0] = node;
+        for (int d = 1; d <= DEPTH; d++) {
+            int bit = DEPTH - d;
+            int child;
+            if (((p >>> bit) & 1) == 0) {
+                child = own(seg.lo[node]);
+                seg.lo[node] = child;
+            } else {
+                child = own(seg.hi[node]);
+                seg.hi[node] = child;
+            }
+            node = child;
+            path[d] = node;
+        }
+        return node;
+    }
+
+    // Leaf for position p without modifying anything (NIL if absent)
+    private int findLeaf(long p) {
+        int node = root;
+        for (int bit = DEPTH - 1; bit >= 0 && node != NIL; bit--) {
+            node = (((p >>> bit) & 1) == 0) ? seg.lo[node] : seg.hi[node];
+        }
+        return node;
+    }
+
+    // Re-aggregates the recorded path bottom-up, dropping nodes left without cards
+    private void fixPath() {
+        for (int d = DEPTH; d >= 0; d--) {
+            int node = path[d];
+            boolean empty;
+            if (d == DEPTH) {
+                int top = seg.inner[node];
+                empty = top == NIL;
+                if (!empty) {
+                    seg.minH[node] = inner.minNode(top).getHcur();
+                    seg.maxH[node] = inner.maxNode(top).getHcur();
+                    seg.cards[node] = inner.sizeOf(top);
+                }
+            } else {
+                int l = seg.lo[node], h = seg.hi[node];
+                empty = l == NIL && h == NIL;
+                seg.minH[node] = Math.min(seg.minH[l], seg.minH[h]);
+                seg.maxH[node] = Math.max(seg.maxH[l], seg.maxH[h]);
+                seg.cards[node] = seg.cards[l] + seg.cards[h];
+            }
+            if (!empty) continue;
+            seg.release(node); // always this deck's own: the path was copied first
+            if (d == 0) {
+                root = NIL;
+            } else {
+                int parent = path[d - 1];
+                if (seg.lo[parent] == node) seg.lo[parent] = NIL;
+                else seg.hi[parent] = NIL;
+            }
+        }
+    }
+
+    @Override
+    public void insert(Card c) {
+        int leaf = ownPath(pos(c.getAcur()));
+        seg.inner[leaf] = inner.insertAt(seg.inner[leaf], c);
+        if (inner.changed) cardCount++; // otherwise already present
+        fixPath();
+    }
+
+    @Override
+    public void delete(Card c) {
+        long p = pos(c.getAcur());
+        long key = inner.keyOf(c);
+        // Look before copying anything: deleting a missing card changes nothing
+        int leaf = findLeaf(p);
+        if (leaf == NIL) return;
+        int hit = inner.ceiling(seg.inner[leaf], key);
+        if (hit == NodePool.NIL || inner.pool.key[hit] != key) return;
+
+        leaf = ownPath(p);
+        seg.inner[leaf] = inner.deleteAt(seg.inner[leaf], key);
+        cardCount--;
+        fixPath();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return root == NIL;
+    }
+
+    @Override
+    public int cardCount() {
+        return cardCount;
+    }
+
+    // Leaves are not counted on updates; only metrics ask, so walk the tree
+    @Override
+    public int bandCount() {
+        return leaves(root, DEPTH);
+    }
+
+    private int leaves(int node, int levels) {
+        if (node == NIL) return 0;
+        if (levels == 0) return 1;
+        return leaves(seg.lo[node], levels - 1) + leaves(seg.hi[node], levels - 1);
+    }
+
+    @Override
+    public int height() {
+        return (root == NIL) ? 0 : DEPTH + 1;
+    }
+
+    @Override
+    public void bulkInsert(Card[] cards, int n) {
+        for (int i = 0; i < n; i++) insert(cards[i]);
+    }
+
+    @Override
+    public int dumpInOrder(Card[] out, int pos) {
+        return dump(root, DEPTH, out, pos);
+    }
+
+    private int dump(int node, int levels, Card[] out, int pos) {
+        if (node == NIL) return pos;
+        if (levels == 0) return inner.dumpInOrder(seg.inner[node], out, pos);
+        pos = dump(seg.lo[node], levels - 1, out, pos);
+        return dump(seg.hi[node], levels - 1, out, pos);
+    }
+
+    // Each attack run becomes one leaf whose inner tree is built in O(run length)
+    @Override
+    public void loadSorted(Card[] sorted, int n) {
+        releaseAll(root, DEPTH);
+        root = NIL;
+        int[] cardNodes = new int[n];
+        int i = 0;
+        while (i < n) {
+            int A = sorted[i].getAcur();
+            int j = i;
+            while (j < n && sorted[j].getAcur() == A) {
+                cardNodes[j] = inner.allocNode(inner.keyOf(sorted[j]), sorted[j]);
+                j++;
+            }
+            int leaf = ownPath(pos(A));
+            seg.inner[leaf] = inner.buildBalanced(cardNodes, i, j - 1);
+            fixPath();
+            i = j;
+        }
+        cardCount = n;
+    }
+
+    // Frees this deck's own nodes; below a shared node everything is shared
+    private void releaseAll(int node, int levels) {
+        if (node == NIL || seg.gen[node] != gen) return;
+        if (levels == 0) {
+            inner.releaseTree(seg.inner[node]);
+        } else {
+            releaseAll(seg.lo[node], levels - 1);
+            releaseAll(seg.hi[node], levels - 1);
+        }
+        seg.release(node);
+    }
+
+    // Leftmost leaf at position >= from holding some H > h. Node covers [base, base + 2^levels)
+    private int firstMaxAbove(int node, int levels, long base, long from, int h) {
+        if (node == NIL || seg.maxH[node] <= h || base + (1L << levels) <= from) return NIL;
+        if (levels == 0) return node;
+        long half = 1L << (levels - 1);
+        int ans = firstMaxAbove(seg.lo[node], levels - 1, base, from, h);
+        if (ans != NIL) return ans;
+        return firstMaxAbove(seg.hi[node], levels - 1, base + half, from, h);
+    }
+
+    // Rightmost leaf at position < to holding some H > h
+    private int lastMaxAbove(int node, int levels, long base, long to, int h) {
+        if (node == NIL || seg.maxH[node] <= h || base >= to) return NIL;
+        if (levels == 0) return node;
+        long half = 1L << (levels - 1);
+        int ans = lastMaxAbove(seg.hi[node], levels - 1, base + half, to, h);
+        if (ans != NIL) return ans;
+        return lastMaxAbove(seg.lo[node], levels - 1, base, to, h);
+    }
+
+    // Leftmost leaf at position >= from holding some H <= h
+    private int firstMinAtMost(int node, int levels, long base, long from, int h) {
+        if (node == NIL || seg.minH[node] > h || base + (1L << levels) <= from) return NIL;
+        if (levels == 0) return node;
+        long half = 1L << (levels - 1);
+        int ans = firstMinAtMost(seg.lo[node], levels - 1, base, from, h);
+        if (ans != NIL) return ans;
+        return firstMinAtMost(seg.hi[node], levels - 1, base + half, from, h);
+    }
+
+    // Cards at leaf positions below pos(att): every lower half left of the descent
+    @Override
+    public int countAttackBelow(int att) {
+        long p = pos(att);
+        int node = root, below = 0;
+        for (int bit = DEPTH - 1; bit >= 0 && node != NIL; bit--) {
+            if (((p >>> bit) & 1) == 0) {
+                node = seg.lo[node];
+            } else {
+                below += seg.cards[seg.lo[node]];
+                node = seg.hi[node];
+            }
+        }
+        return below;
+    }
+
+    @Override
+    public int rankOf(Card c) {
+        int leaf = findLeaf(pos(c.getAcur()));
+        if (leaf == NIL || !inner.contains(seg.inner[leaf], c)) return -1;
+        int top = seg.inner[leaf];
+        int stronger = cardCount - countAttackBelow(c.getAcur()) - inner.sizeOf(top)
+                + inner.countGreater(top, inner.keyOf(c));
+        return 1 + stronger;
+    }
+
+    // Descends toward the (cardCount - k)-th card in deck order by the lower halves' counts
+    @Override
+    public Card kthStrongest(int k) {
+        if (k < 1 || k > cardCount) return null;
+        int index = cardCount - k;
+        int node = root;
+        for (int d = 0; d < DEPTH; d++) {
+            int lo = seg.lo[node];
+            if (index < seg.cards[lo]) {
+                node = lo;
+            } else {
+                index -= seg.cards[lo];
+                node = seg.hi[node];
+            }
+        }
+        return inner.pool.element[inner.select(seg.inner[node], index)];
+    }
+
+    @Override
+    public Card findForPriority1(int att, int hp) {
+        int leaf = firstMaxAbove(root, DEPTH, 0, pos(hp), att);
+        if (leaf == NIL) return null;
+        return inner.minStrictGreaterH(seg.inner[leaf], att);
+    }
+
+    @Override
+    public Card findForPriority2(int att, int hp) {
+        int leaf = lastMaxAbove(root, DEPTH, 0, pos(hp), att);
+        if (leaf == NIL) return null;
+        return inner.minStrictGreaterH(seg.inner[leaf], att);
+    }
+
+    @Override
+    public Card findForPriority3(int att, int hp) {
+        int leaf = firstMinAtMost(root, DEPTH, 0, pos(hp), att);
+        if (leaf == NIL) return null;
+        return inner.minNode(seg.inner[leaf]);
+    }
+
+    @Override
+    public Card findForPriority4(int att, int hp) {
+        if (root == NIL) return null;
+        // Every present node has a card below it, so prefer the upper half all the way down
+        int node = root;
+        for (int d = 0; d < DEPTH; d++) {
+            node = (seg.hi[node] != NIL) ? seg.hi[node] : seg.lo[node];
+        }
+        return inner.minNode(seg.inner[node]);
+    }
+
+    @Override
+    public Card findForSteal(int att, int hp) {
+        int leaf = firstMaxAbove(root, DEPTH, 0, pos(att + 1L), hp);
+        if (leaf == NIL) return null;
+        return inner.minStrictGreaterH(seg.inner[leaf], hp);
+    }
+}
@@ -0,0 +1,177 @@
+import java.lang.ref.WeakReference;
+
+public class SegmentPool {
+
+    // Handle 0 is a sentinel "null" node: empty subtree
+    public static final int NIL = 0;
+
+    // Node columns, indexed by node handle
+    public int[] lo;       // Child covering the lower half of the node's attack range
+    public int[] hi;       // Child covering the upper half
+    public int[] minH;     // Health aggregates over every card below the node
+    public int[] maxH;
+    public int[] cards;    // Cards below the node (0 for NIL)
+    public int[] inner;    // Leaves only: root of the attack value's inner health tree
+    public int[] gen;      // Generation of the deck branch that created the node
+
+    private int top = 1;          // Next never-used handle
+    private int freeHead = NIL;   // Recycled handles, chained through lo[]
+    private int live = 0;
+    private int lastGeneration = 0;
+
+    // Reclaiming nodes shared by forked decks once no deck reaches them, as NodePool.collect
+    public interface Owner {
+        // Calls pool.markTree on the root this owner holds in 'pool'
+        void markNodes(SegmentPool pool);
+    }
+
+    private static final int COLLECT_MIN = 4096;
+
+    private WeakReference<Owner>[] owners = newOwners(4);
+    private int ownerCount = 0;
+    private boolean forked = false;
+    private int liveAfterCollect = 0;
+    private long[] marks;
+
+    public SegmentPool(int capacity) {
+        int cap = Math.max(capacity, 2);
+        lo = new int[cap];
+        hi = new int[cap];
+        minH = new int[cap];
+        maxH = new int[cap];
+        cards = new int[cap];
+        inner = new int[cap];
+        gen = new int[cap];
+        // Sentinel values keep the aggregate update branch-free for NIL children
+        minH[NIL] = Integer.MAX_VALUE;
+        maxH[NIL] = Integer.MIN_VALUE;
+    }
+
+    // Fresh generation number for a deck branch working on this pool
+    public int newGeneration() {
+        return ++lastGeneration;
+    }
+
+    // Number of nodes currently in use
+    public int size() {
+        return live;
+    }
+
+    public void addOwner(Owner owner) {
+        if (ownerCount == owners.length) {
+            WeakReference<Owner>[] grown = newOwners(ownerCount * 2);
+            System.arraycopy(owners, 0, grown, 0, ownerCount);
+            owners = grown;
+        }
+        owners[ownerCount++] = new WeakReference<>(owner);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WeakReference<Owner>[] newOwners(int n) {
+        return (WeakReference<Owner>[]) new WeakReference<?>[n];
+    }
+
+    // Called when a deck on this pool is forked: from now on nodes may be shared
+    public void noteFork() {
+        forked = true;
+        liveAfterCollect = Math.max(liveAfterCollect, live);
+    }
+
+    // Collects once the pool was forked and has doubled since the last collection
+    public boolean collectIfDue() {
+        if (!forked || live < COLLECT_MIN || live < 2 * liveAfterCollect) return false;
+        collect();
+        return true;
+    }
+
+    // Releases every node no live owner reaches; returns how many were released
+    public int collect() {
+        marks = new long[(top + 63) >>> 6];
+        int kept = 0;
+        for (int i = 0; i < ownerCount; i++) {
+            Owner o = owners[i].get();
+            if (o == null) continue;
+            o.markNodes(this);
+            owners[kept++] = owners[i];
+        }
+        for (int i = kept; i < ownerCount; i++) owners[i] = null;
+        ownerCount = kept;
+
+        for (int n = freeHead; n != NIL; n = lo[n]) setMark(n); // already free
+        int released = 0;
+        for (int n = 1; n < top; n++) {
+            if (!isMarked(n)) {
+                release(n);
+                released++;
+            }
+        }
+        marks = null;
+        liveAfterCollect = live;
+        return released;
+    }
+
+    // Marks the subtree under node (during collect), once per shared subtree
+    public void markTree(int node) {
+        if (node == NIL || isMarked(node)) return;
+        setMark(node);
+        markTree(lo[node]);
+        markTree(hi[node]);
+    }
+
+    private boolean isMarked(int n) {
+        return (marks[n >>> 6] & (1L << n)) != 0;
+    }
+
+    private void setMark(int n) {
+        marks[n >>> 6] |= 1L << n;
+    }
+
+    // Takes an empty node of generation g, reusing a released handle when possible
+    public int alloc(int g) {
+        int n;
+        if (freeHead != NIL) {
+            n = freeHead;
+            freeHead = lo[n];
+        } else {
+            if (top == lo.length) grow(lo.length * 2);
+            n = top++;
+        }
+        lo[n] = NIL;
+        hi[n] = NIL;
+        minH[n] = Integer.MAX_VALUE;
+        maxH[n] = Integer.MIN_VALUE;
+        cards[n] = 0;
+        inner[n] = NIL;
+        gen[n] = g;
+        live++;
+        return n;
+    }
+
+    // Returns a node to the free list
+    public void release(int n) {
+        hi[n] = NIL;
+        lo[n] = freeHead;
+        freeHead = n;
+        live--;
+    }
+
+    // Copies every column of one node into another (path copying)
+    public void copyNode(int from, int to) {
+        lo[to] = lo[from];
+        hi[to] = hi[from];
+        minH[to] = minH[from];
+        maxH[to] = maxH[from];
+        cards[to] = cards[from];
+        inner[to] = inner[from];
+    }
+
+    private void grow(int cap) {
+        lo = NodePool.copyOf(lo, cap);
+        hi = NodePool.copyOf(hi, cap);
+        minH = NodePool.copyOf(minH, cap);
+        maxH = NodePool.copyOf(maxH, cap);
+        cards = NodePool.copyOf(cards, cap);
+        inner = NodePool.copyOf(inner, cap);
+        gen = NodePool.copyOf(gen, cap);
+    }
+}
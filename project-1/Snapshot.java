@@ -0,0 +1,175 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary checkpoint format for a Game, written and read through NIO file channels.
+ *
+ * Layout (big-endian):
+ *   int magic, int version
+ *   int survivorPts, strangerPts, entryOrderCounter, deckSize, discardPileSize, discardentryOrderCounter
+ *   int deck card count, then every deck card in deck (in-order) order
+ *   int pile card count, then every dead card in pile pre-order, each followed by a byte
+ *   of child flags (1 = has a left child, 2 = has a right child)
+ *
+ * A card is its name (int byte length + UTF-8 bytes) followed by Ainit, Abase, Acur, Hinit,
+ * Hbase, Hcur and entryOrder. A dead card is its underlying card followed by deathOrder,
+ * revivalProgress and its long discard key. The deck is stored sorted and the pile with its
+ * exact tree shape (which card a full revive picks among equal Hmissing depends on it), so
+ * restore rebuilds both trees in linear time.
+ */
+public class Snapshot {
+
+    static final int MAGIC = 0x4E505353; // "NPSS"
+    static final int VERSION = 2;
+
+    private static final int BUFFER = 1 << 20;
+
+    // Buffered primitive writer over a file channel
+    static class Out implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER);
+
+        Out(String file) throws IOException {
+            channel = FileChannel.open(Paths.get(file), StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            buf.flip();
+            while (buf.hasRemaining()) channel.write(buf);
+            buf.clear();
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(4);
+            buf.putInt(v);
+        }
+
+        void putByte(byte v) throws IOException {
+            ensure(1);
+            buf.put(v);
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(8);
+            buf.putLong(v);
+        }
+
+        void putString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            if (bytes.length > buf.capacity()) {
+                ensure(buf.capacity());
+                ByteBuffer big = ByteBuffer.wrap(bytes);
+                while (big.hasRemaining()) channel.write(big);
+                return;
+            }
+            ensure(bytes.length);
+            buf.put(bytes);
+        }
+
+        void putCard(Card c) throws IOException {
+            putString(c.getName());
+            putInt(c.getAinit());
+            putInt(c.getAbase());
+            putInt(c.getAcur());
+            putInt(c.getHinit());
+            putInt(c.getHbase());
+            putInt(c.getHcur());
+            putInt(c.getEntryOrder());
+        }
+
+        void putDeadCard(DeadCard d) throws IOException {
+            putCard(d.getRef());
+            putInt(d.getDeathOrder());
+            putInt(d.getRevivalProgress());
+            putLong(d.getDiscardKey());
+        }
+
+        @Override
+        public void close() throws IOException {
+            ensure(buf.capacity());
+            channel.close();
+        }
+    }
+
+    // Buffered primitive reader over a file channel
+    static class In implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER);
+
+        In(String file) throws IOException {
+            channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+            buf.limit(0);
+        }
+
+        // Makes at least n bytes readable, failing on a truncated file
+        private void fill(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            buf.compact();
+            while (buf.position() < n) {
+                if (channel.read(buf) < 0) throw new IOException("Truncated snapshot");
+            }
+            buf.flip();
+        }
+
+        int getInt() throws IOException {
+            fill(4);
+            return buf.getInt();
+        }
+
+        byte getByte() throws IOException {
+            fill(1);
+            return buf.get();
+        }
+
+        long getLong() throws IOException {
+            fill(8);
+            return buf.getLong();
+        }
+
+        String getString() throws IOException {
+            int len = getInt();
+            if (len < 0) throw new IOException("Corrupt snapshot");
+            byte[] bytes = new byte[len];
+            int off = 0;
+            while (off < len) {
+                fill(Math.min(len - off, buf.capacity()));
+                int chunk = Math.min(len - off, buf.remaining());
+                buf.get(bytes, off, chunk);
+                off += chunk;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Card getCard() throws IOException {
+            String name = getString();
+            int Ainit = getInt();
+            int Abase = getInt();
+            int Acur = getInt();
+            int Hinit = getInt();
+            int Hbase = getInt();
+            int Hcur = getInt();
+            int entryOrder = getInt();
+            return new Card(name, Ainit, Abase, Acur, Hinit, Hbase, Hcur, entryOrder);
+        }
+
+        DeadCard getDeadCard() throws IOException {
+            Card ref = getCard();
+            DeadCard d = new DeadCard(ref, getInt());
+            d.setRevivalProgress(getInt());
+            d.setDiscardKey(getLong());
+            return d;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Measures commands per second and memory of one Game on a command file.
+ *
+ * Usage: java Throughput <input_file> [runs]
+ *
+ * Every run (default 3, after one warm-up) replays the file on a fresh Game whose output is
+ * discarded. Reported per run: commands/s, the heap high-water mark during the run (peak
+ * usage summed over the heap pools, reset before the run) and the heap still in use after a
+ * full GC at the end, i.e. what the final game state retains. Run with a fixed heap
+ * (-Xms = -Xmx) for comparable peaks. Generate inputs with WorkloadGenerator.
+ */
+public class Throughput {
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private static long lines; // Commands of the last replay
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java Throughput <input_file> [runs]");
+            return;
+        }
+        String inFile = args[0];
+        int runs = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+
+        replay(inFile); // warm-up
+        for (int r = 1; r <= runs; r++) {
+            collect();
+            long before = heapUsed();
+            resetPeaks();
+            long start = System.nanoTime();
+            Game game = replay(inFile);
+            long elapsed = System.nanoTime() - start;
+            long peak = heapPeak();
+            collect();
+            long retained = heapUsed() - before;
+            System.out.printf("run %d: %d commands in %.3f s (%.0f commands/s), heap peak %.1f MB, "
+                            + "retained %.1f MB (deck %d cards)%n",
+                    r, lines, elapsed / 1e9, lines / (elapsed / 1e9), peak / 1048576.0,
+                    retained / 1048576.0, game.deckCardCount());
+        }
+    }
+
+    // Plays the whole file on a fresh game and returns it, so its state stays reachable
+    private static Game replay(String inFile) throws IOException {
+        lines = 0;
+        try (CommandReader reader = CommandReader.open(inFile);
+             ResponseEncoder writer = new ResponseEncoder(DISCARD)) {
+            Game game = new Game(writer);
+            int command;
+            while ((command = reader.nextCommand()) != CommandReader.END) {
+                lines++;
+                if (!game.execute(command, reader)) {
+                    throw new IOException("Invalid command: " + reader.commandName());
+                }
+            }
+            return game;
+        }
+    }
+
+    private static void collect() {
+        for (int i = 0; i < 3; i++) System.gc();
+    }
+
+    private static void resetPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    private static long heapPeak() {
+        long sum = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) sum += pool.getPeakUsage().getUsed();
+        }
+        return sum;
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,205 @@
+import java.io.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Replays a directory of Nightpass command files as independent games in parallel.
+ *
+ * Usage: java Tournament <input_dir> <output_dir> [threads]
+ *
+ * Every *.txt file in the input directory gets its own Game, CommandReader and
+ * ResponseEncoder (games share no state), and its output is written under the same name
+ * in the output directory, which must not be the input directory. Files are spread over
+ * a fork-join pool; when all games are done a throughput / per-game latency / score
+ * summary is printed and saved as summary.txt in the output directory (a summary.txt
+ * among the inputs is not a game).
+ */
+public class Tournament {
+
+    private static final String SUMMARY = "summary.txt";
+
+    // One game script and what replaying it produced
+    private static class Result {
+        final File input;
+        long lines;
+        long nanos;
+        int survivorScore;
+        int strangerScore;
+        String error;   // null when the whole script ran
+
+        Result(File input) {
+            this.input = input;
+        }
+    }
+
+    // Splits the result range in halves until a single game is left, then plays it
+    private static class PlayAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Result[] results;
+        private final int lo, hi;
+        private final File outDir;
+
+        PlayAction(Result[] results, int lo, int hi, File outDir) {
+            this.results = results;
+            this.lo = lo;
+            this.hi = hi;
+            this.outDir = outDir;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                play(results[lo], outDir);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new PlayAction(results, lo, mid, outDir), new PlayAction(results, mid, hi, outDir));
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.out.println("Usage: java Tournament <input_dir> <output_dir> [threads]");
+            return;
+        }
+        File inDir = new File(args[0]);
+        File outDir = new File(args[1]);
+        int threads = (args.length == 3) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        // Outputs and summary.txt use the input names, so they must go to another directory
+        try {
+            if (inDir.getCanonicalFile().equals(outDir.getCanonicalFile())) {
+                System.out.println("Output directory must differ from the input directory: " + outDir);
+                return;
+            }
+        } catch (IOException e) {
+            System.out.println("Cannot resolve directory: " + e.getMessage());
+            return;
+        }
+
+        File[] inputs = inDir.listFiles((dir, name) -> name.endsWith(".txt") && !name.equals(SUMMARY));
+        if (inputs == null || inputs.length == 0) {
+            System.out.println("No command files in: " + inDir);
+            return;
+        }
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            System.out.println("Cannot create output directory: " + outDir);
+            return;
+        }
+
+        Result[] results = new Result[inputs.length];
+        for (int i = 0; i < inputs.length; i++) results[i] = new Result(inputs[i]);
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new PlayAction(results, 0, results.length, outDir));
+        } finally {
+            pool.shutdown();
+        }
+        long wall = System.nanoTime() - start;
+
+        String summary = summarize(results, wall, threads);
+        System.out.print(summary);
+        try (Writer w = new FileWriter(new File(outDir, SUMMARY))) {
+            w.write(summary);
+        } catch (IOException e) {
+            System.out.println("Writing error: " + SUMMARY);
+            e.printStackTrace();
+        }
+    }
+
+    // Replays one script exactly as Main would, recording time, line count and final scores
+    private static void play(Result r, File outDir) {
+        long start = System.nanoTime();
+        try (CommandReader reader = CommandReader.open(r.input.getPath());
+             ResponseEncoder writer = new ResponseEncoder(new FileOutputStream(new File(outDir, r.input.getName())))) {
+            Game game = new Game(writer);
+            int command;
+            while ((command = reader.nextCommand()) != CommandReader.END) {
+                r.lines++;
+                if (!game.execute(command, reader)) {
+                    r.error = "Invalid command: " + reader.commandName();
+                    break;
+                }
+            }
+            r.survivorScore = game.survivorScore();
+            r.strangerScore = game.strangerScore();
+        } catch (Exception e) {
+            r.error = "Error processing commands: " + e.getMessage();
+        }
+        r.nanos = System.nanoTime() - start;
+    }
+
+    private static String summarize(Result[] results, long wallNanos, int threads) {
+        int n = results.length;
+        long totalLines = 0;
+        long[] gameNanos = new long[n];
+        int survivorWins = 0, strangerWins = 0, failed = 0;
+        long survivorSum = 0, strangerSum = 0;
+        StringBuilder errors = new StringBuilder();
+
+        for (int i = 0; i < n; i++) {
+            Result r = results[i];
+            totalLines += r.lines;
+            gameNanos[i] = r.nanos;
+            if (r.error != null) {
+                // A game that stopped early has no final score: left out of wins and averages
+                failed++;
+                errors.append("  ").append(r.input.getName()).append(": ").append(r.error).append('\n');
+                continue;
+            }
+            survivorSum += r.survivorScore;
+            strangerSum += r.strangerScore;
+            // Same rule as find_winning: ties go to the Survivor
+            if (r.survivorScore >= r.strangerScore) survivorWins++;
+            else strangerWins++;
+        }
+        int finished = n - failed;
+        sort(gameNanos);
+
+        double wallSeconds = wallNanos / 1e9;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Games: %d on %d threads, %d failed%n", n, threads, failed));
+        sb.append(String.format("Throughput: %d lines in %.3f s (%.0f lines/s, %.1f games/s)%n",
+                totalLines, wallSeconds, totalLines / wallSeconds, n / wallSeconds));
+        sb.append(String.format("Game latency (ms): min %.3f, p50 %.3f, p99 %.3f, max %.3f%n",
+                gameNanos[0] / 1e6, percentile(gameNanos, 0.50) / 1e6,
+                percentile(gameNanos, 0.99) / 1e6, gameNanos[n - 1] / 1e6));
+        sb.append(String.format("Wins: Survivor %d, Stranger %d%n", survivorWins, strangerWins));
+        if (finished > 0) {
+            sb.append(String.format("Average score (%d finished games): Survivor %.2f, Stranger %.2f%n",
+                    finished, (double) survivorSum / finished, (double) strangerSum / finished));
+        }
+        if (failed > 0) sb.append("Failures:\n").append(errors);
+        return sb.toString();
+    }
+
+    // Nearest-rank percentile of sorted values
+    private static long percentile(long[] sorted, double q) {
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    // Bottom-up merge sort (ascending)
+    private static void sort(long[] a) {
+        int n = a.length;
+        long[] src = a;
+        long[] dst = new long[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) dst[k++] = (src[j] < src[i]) ? src[j++] : src[i++];
+                while (i < mid) dst[k++] = src[i++];
+                while (j < hi) dst[k++] = src[j++];
+            }
+            long[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) System.arraycopy(src, 0, a, 0, n);
+    }
+}
@@ -0,0 +1,223 @@
+import java.io.*;
+import java.util.SplittableRandom;
+
+/**
+ * Writes Nightpass command files of any size for benchmarks.
+ *
+ * Usage: java WorkloadGenerator <output_file> <lines> [option=value ...]
+ *
+ * Options:
+ *   seed=N                 random seed (default 1)
+ *   mix=draw:35,battle:45,steal:8,deck_count:5,discard_pile_count:4,find_winning:3
+ *                          relative weights of the commands
+ *   heal=P                 percent of battles that are type-2 (with a heal value), default 50
+ *   att=DIST, hp=DIST      stats of drawn cards (default uniform:1:1000)
+ *   fight=DIST             attack and health of the Stranger in battles and steals
+ *                          (default: the card distributions)
+ *   healing=DIST           heal values of type-2 battles (default uniform:0:2000)
+ *   burst=N                draw_card lines before the mix starts (default 0)
+ *   profile=NAME           preset applied before the other options:
+ *                            bands   - every drawn card gets a new attack value and the
+ *                                      Stranger is weak, so cards survive: many bands
+ *                            discard - a strong Stranger kills most cards and heals are
+ *                                      small: a large discard pile of partial revives
+ *
+ * DIST is uniform:lo:hi, skew:lo:hi:k (values pile up near lo, more for larger k) or
+ * distinct:lo (lo, lo + 1, ... one new value per draw). Lines are streamed, so the size
+ * is only limited by the disk (10^8 lines is about 2 GB).
+ */
+public class WorkloadGenerator {
+
+    // A card stat or Stranger value distribution
+    private static final class Dist {
+        final String kind;
+        final long lo, hi;
+        final double k;
+        long nextDistinct;
+
+        Dist(String spec) {
+            String[] p = spec.split(":");
+            kind = p[0];
+            lo = Long.parseLong(p[1]);
+            hi = (p.length > 2) ? Long.parseLong(p[2]) : lo;
+            k = (p.length > 3) ? Double.parseDouble(p[3]) : 2.0;
+            nextDistinct = lo;
+            if (!kind.equals("uniform") && !kind.equals("skew") && !kind.equals("distinct")) {
+                throw new IllegalArgumentException("Unknown distribution: " + spec);
+            }
+        }
+
+        long next(SplittableRandom rng) {
+            switch (kind) {
+                case "distinct":
+                    return nextDistinct++;
+                case "skew":
+                    return lo + (long) ((hi - lo + 1) * Math.pow(rng.nextDouble(), k));
+                default:
+                    return lo + rng.nextLong(hi - lo + 1);
+            }
+        }
+    }
+
+    private static final String[] COMMANDS = {
+            "draw", "battle", "steal", "deck_count", "discard_pile_count", "find_winning",
+    };
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java WorkloadGenerator <output_file> <lines> [option=value ...]");
+            return;
+        }
+        String outFile = args[0];
+        long lines = Long.parseLong(args[1]);
+
+        // Defaults, then the profile, then explicit options
+        String mix = "draw:35,battle:45,steal:8,deck_count:5,discard_pile_count:4,find_winning:3";
+        String att = "uniform:1:1000", hp = "uniform:1:1000", fight = null, healing = "uniform:0:2000";
+        long seed = 1, burst = 0;
+        int healPercent = 50;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 2; i < args.length; i++) {
+                int eq = args[i].indexOf('=');
+                if (eq < 0) throw new IllegalArgumentException("Expected option=value: " + args[i]);
+                String key = args[i].substring(0, eq), value = args[i].substring(eq + 1);
+                if (pass == 0) {
+                    if (!key.equals("profile")) continue;
+                    if (value.equals("bands")) {
+                        att = "distinct:1";
+                        fight = "uniform:1:3";
+                    } else if (value.equals("discard")) {
+                        fight = "uniform:5000:10000";
+                        healing = "skew:0:50:3";
+                        healPercent = 100;
+                    } else {
+                        throw new IllegalArgumentException("Unknown profile: " + value);
+                    }
+                    continue;
+                }
+                switch (key) {
+                    case "profile": break;
+                    case "seed": seed = Long.parseLong(value); break;
+                    case "mix": mix = value; break;
+                    case "heal": healPercent = Integer.parseInt(value); break;
+                    case "att": att = value; break;
+                    case "hp": hp = value; break;
+                    case "fight": fight = value; break;
+                    case "healing": healing = value; break;
+                    case "burst": burst = Long.parseLong(value); break;
+                    default: throw new IllegalArgumentException("Unknown option: " + key);
+                }
+            }
+        }
+
+        // Cumulative command weights
+        int[] weights = new int[COMMANDS.length];
+        for (String part : mix.split(",")) {
+            String[] kv = part.split(":");
+            int c = 0;
+            while (c < COMMANDS.length && !COMMANDS[c].equals(kv[0])) c++;
+            if (c == COMMANDS.length) throw new IllegalArgumentException("Unknown command in mix: " + kv[0]);
+            weights[c] = Integer.parseInt(kv[1]);
+        }
+        int total = 0;
+        for (int c = 0; c < weights.length; c++) {
+            total += weights[c];
+            weights[c] = total;
+        }
+        if (total <= 0) throw new IllegalArgumentException("Empty mix: " + mix);
+
+        SplittableRandom rng = new SplittableRandom(seed);
+        Dist cardAtt = new Dist(att), cardHp = new Dist(hp), heals = new Dist(healing);
+        Dist fightAtt = (fight != null) ? new Dist(fight) : new Dist(att.startsWith("distinct") ? "uniform:1:1000" : att);
+        Dist fightHp = (fight != null) ? new Dist(fight) : new Dist(hp);
+
+        long cards = 0;
+        try (LineWriter out = new LineWriter(new FileOutputStream(outFile))) {
+            for (long n = 0; n < lines; n++) {
+                int c = 0;
+                if (n >= burst) {
+                    int r = rng.nextInt(total);
+                    while (weights[c] <= r) c++;
+                }
+                switch (c) {
+                    case 0:
+                        out.word("draw_card").space().word("c").number(cards++)
+                                .space().number(cardAtt.next(rng)).space().number(cardHp.next(rng));
+                        break;
+                    case 1:
+                        out.word("battle").space().number(fightAtt.next(rng)).space().number(fightHp.next(rng));
+                        if (rng.nextInt(100) < healPercent) out.space().number(heals.next(rng));
+                        break;
+                    case 2:
+                        out.word("steal_card").space().number(fightAtt.next(rng)).space().number(fightHp.next(rng));
+                        break;
+                    default:
+                        out.word(COMMANDS[c]);
+                }
+                out.newline();
+            }
+        }
+        System.out.println("Wrote " + lines + " lines (" + cards + " cards) to " + outFile);
+    }
+
+    // Buffered ASCII line writer without a String per number
+    private static final class LineWriter implements Closeable {
+        private final OutputStream out;
+        private final byte[] buf = new byte[1 << 16];
+        private int len = 0;
+
+        LineWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        private void room(int n) throws IOException {
+            if (len + n > buf.length) {
+                out.write(buf, 0, len);
+                len = 0;
+            }
+        }
+
+        LineWriter word(String s) throws IOException {
+            room(s.length());
+            for (int i = 0; i < s.length(); i++) buf[len++] = (byte) s.charAt(i);
+            return this;
+        }
+
+        LineWriter space() throws IOException {
+            room(1);
+            buf[len++] = ' ';
+            return this;
+        }
+
+        LineWriter newline() throws IOException {
+            room(1);
+            buf[len++] = '\n';
+            return this;
+        }
+
+        LineWriter number(long v) throws IOException {
+            room(20);
+            if (v < 0) {
+                buf[len++] = '-';
+                v = -v;
+            }
+            int start = len;
+            do {
+                buf[len++] = (byte) ('0' + v % 10);
+                v /= 10;
+            } while (v > 0);
+            for (int i = start, j = len - 1; i < j; i++, j--) {
+                byte t = buf[i];
+                buf[i] = buf[j];
+                buf[j] = t;
+            }
+            return this;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.write(buf, 0, len);
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+#!/bin/sh
+# Runs the benchmarks and stores the JSON result under results/, named after the commit,
+# so runs on different commits can be compared (e.g. with jmh.morethan.io or a diff script).
+# Usage: ./run.sh [benchmark regex] [JMH options...]
+cd "$(dirname "$0")" || exit 1
+# Always repackage: the jar must hold the current sources of ../, not those of an older build
+mvn -B -q package || exit 1
+commit=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+dirty=$(git status --porcelain -- .. 2>/dev/null | grep -q . && echo -dirty)
+mkdir -p results
+exec java -jar target/benchmarks.jar -rf json -rff "results/$commit$dirty.json" "$@"
@@ -0,0 +1,93 @@
+package nightpass;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Deck updates and the battle/steal queries on a deck of 'size' cards, for every deck
+ * engine (AttackAVL is "avl"). Attack and health are uniform in 1..'range', so 'range'
+ * sets the number of bands. insertDelete adds and removes a card that is not in the deck.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeckEngineBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"avl", "segment", "btree"})
+    String engine;
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    @Param({"100", "100000"})
+    int range;
+
+    private DeckEngine deck;
+    private Card[] probes;
+    private int[] att, hp;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom rng = new SplittableRandom(42);
+        deck = DeckEngine.create(engine, new NodePool(size + PROBES + 1));
+        Card[] cards = new Card[size];
+        for (int i = 0; i < size; i++) {
+            cards[i] = new Card("c" + i, 1 + rng.nextInt(range), 1 + rng.nextInt(range), i);
+        }
+        deck.bulkInsert(cards, size);
+        probes = new Card[PROBES];
+        att = new int[PROBES];
+        hp = new int[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = new Card("p" + i, 1 + rng.nextInt(range), 1 + rng.nextInt(range), size + i);
+            att[i] = 1 + rng.nextInt(range);
+            hp[i] = 1 + rng.nextInt(range);
+        }
+    }
+
+    @Benchmark
+    public int insertDelete() {
+        Card c = probes[next++ & (PROBES - 1)];
+        deck.insert(c);
+        deck.delete(c);
+        return deck.cardCount();
+    }
+
+    @Benchmark
+    public Card findForPriority1() {
+        int i = next++ & (PROBES - 1);
+        return deck.findForPriority1(att[i], hp[i]);
+    }
+
+    @Benchmark
+    public Card findForPriority2() {
+        int i = next++ & (PROBES - 1);
+        return deck.findForPriority2(att[i], hp[i]);
+    }
+
+    @Benchmark
+    public Card findForPriority3() {
+        int i = next++ & (PROBES - 1);
+        return deck.findForPriority3(att[i], hp[i]);
+    }
+
+    @Benchmark
+    public Card findForPriority4() {
+        int i = next++ & (PROBES - 1);
+        return deck.findForPriority4(att[i], hp[i]);
+    }
+
+    @Benchmark
+    public Card findForSteal() {
+        int i = next++ & (PROBES - 1);
+        return deck.findForSteal(att[i], hp[i]);
+    }
+}
@@ -0,0 +1,55 @@
+package nightpass;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * DiscardAVL insert/delete and the partial-revive lookup on a pile of 'size' dead cards.
+ * insertDelete adds and removes a card that is not in the pile.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiscardAVLBenchmark {
+
+    private static final int PROBES = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private DiscardAVL pile;
+    private DeadCard[] probes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom rng = new SplittableRandom(42);
+        pile = new DiscardAVL();
+        for (int i = 0; i < size; i++) {
+            pile.insert(new DeadCard(new Card("c" + i, 1 + rng.nextInt(1000), 1 + rng.nextInt(1000), i), i));
+        }
+        probes = new DeadCard[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            Card ref = new Card("p" + i, 1 + rng.nextInt(1000), 1 + rng.nextInt(1000), size + i);
+            probes[i] = new DeadCard(ref, size + i);
+        }
+    }
+
+    @Benchmark
+    public int insertDelete() {
+        DeadCard dc = probes[next++ & (PROBES - 1)];
+        pile.insert(dc);
+        pile.delete(dc);
+        return pile.size();
+    }
+
+    @Benchmark
+    public DeadCard minMissing() {
+        return pile.minMissing();
+    }
+}
@@ -0,0 +1,57 @@
+package nightpass;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The tree work of Game.runHealing for a pile of 'size' dead cards and a heal budget.
+ *
+ * fullRevive is the full-revive phase (DiscardAVL.takeFull, one pass until nothing fits)
+ * followed by putting the revived cards back, so every invocation starts from the same set
+ * of cards. partialRevive puts the minimum-Hmissing card back in its place, as the leftover
+ * heal does (DiscardAVL.replaceMin). The card stat changes of runHealing (DeadCard.apply*)
+ * are left out: they are O(1) per card and would change the pile between invocations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HealingBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"10", "1000", "100000"})
+    int heal;
+
+    private DiscardAVL pile;
+    private DeadCard[] revived = new DeadCard[16];
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom rng = new SplittableRandom(42);
+        pile = new DiscardAVL();
+        for (int i = 0; i < size; i++) {
+            pile.insert(new DeadCard(new Card("c" + i, 1 + rng.nextInt(1000), 1 + rng.nextInt(1000), i), i));
+        }
+    }
+
+    @Benchmark
+    public int fullRevive() {
+        if (revived.length < size) revived = Arrays.copyOf(revived, size);
+        int count = pile.takeFull(heal, revived);
+        for (int i = 0; i < count; i++) pile.insert(revived[i]);
+        return count;
+    }
+
+    @Benchmark
+    public int partialRevive() {
+        pile.replaceMin(pile.minMissing());
+        return pile.size();
+    }
+}
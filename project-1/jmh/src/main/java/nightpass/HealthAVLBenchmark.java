@@ -0,0 +1,70 @@
+package nightpass;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * BaseAVL insert/delete and the HealthAVL lookups on one inner tree of 'size' cards.
+ * insertDelete adds and removes a card that is not in the tree, so the tree keeps its size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HealthAVLBenchmark {
+
+    private static final int PROBES = 1024;   // Power of two: probe index is a mask
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private HealthAVL tree;
+    private Card[] probes;
+    private long[] keys;
+    private int[] healths;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SplittableRandom rng = new SplittableRandom(42);
+        tree = new HealthAVL(new NodePool(size + PROBES + 1));
+        for (int i = 0; i < size; i++) {
+            tree.insert(new Card("c" + i, 1 + rng.nextInt(1000), 1 + rng.nextInt(1000), i));
+        }
+        probes = new Card[PROBES];
+        keys = new long[PROBES];
+        healths = new int[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = new Card("p" + i, 1 + rng.nextInt(1000), 1 + rng.nextInt(1000), size + i);
+            healths[i] = rng.nextInt(1001);
+            keys[i] = HealthAVL.healthKey(healths[i], rng.nextInt(size));
+        }
+    }
+
+    @Benchmark
+    public int insertDelete() {
+        Card c = probes[next++ & (PROBES - 1)];
+        tree.insert(c);
+        tree.delete(c);
+        return tree.root;
+    }
+
+    @Benchmark
+    public int ceiling() {
+        return tree.ceiling(tree.root, keys[next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public Card minStrictGreaterH() {
+        return tree.minStrictGreaterH(tree.root, healths[next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public Card minNode() {
+        return tree.minNode(tree.root);
+    }
+}
@@ -0,0 +1,71 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class BTreeDeckTest {
+
+    private static Card[] sortedDeck(List<Card> cards) {
+        Card[] sorted = cards.toArray(new Card[0]);
+        Arrays.sort(sorted, (a, b) -> a.getAcur() != b.getAcur() ? Integer.compare(a.getAcur(), b.getAcur())
+                : a.getHcur() != b.getHcur() ? Integer.compare(a.getHcur(), b.getHcur())
+                : Integer.compare(a.getEntryOrder(), b.getEntryOrder()));
+        return sorted;
+    }
+
+    // Deleting most bands again merges the index back down instead of leaving it sparse
+    @Test
+    void deletesMergeTheIndexDown() {
+        BTreeDeck deck = new BTreeDeck(new NodePool(16));
+        List<Card> live = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            Card c = new Card("c" + i, 1 + i, 1 + i % 7, i);  // one band per card
+            deck.insert(c);
+            live.add(c);
+        }
+        int tall = deck.height();
+        SplittableRandom rng = new SplittableRandom(5);
+        while (live.size() > 40) deck.delete(live.remove(rng.nextInt(live.size())));
+
+        assertEquals(40, deck.bandCount());
+        assertTrue(deck.height() <= 2 && deck.height() < tall);
+        Card[] out = new Card[live.size()];
+        assertEquals(live.size(), deck.dumpInOrder(out, 0));
+        assertArrayEquals(sortedDeck(live), out);
+    }
+
+    // Queries over the aggregates stay exact while nodes borrow and merge
+    @Test
+    void ranksFollowRandomUpdates() {
+        BTreeDeck deck = new BTreeDeck(new NodePool(16));
+        List<Card> live = new ArrayList<>();
+        SplittableRandom rng = new SplittableRandom(9);
+        for (int i = 0; i < 30000; i++) {
+            boolean grow = (i / 5000) % 2 == 0;
+            if (live.isEmpty() || rng.nextInt(10) < (grow ? 7 : 3)) {
+                Card c = new Card("c" + i, 1 + rng.nextInt(2000), 1 + rng.nextInt(50), i);
+                deck.insert(c);
+                live.add(c);
+            } else {
+                deck.delete(live.remove(rng.nextInt(live.size())));
+            }
+            if (i % 1000 == 999) {
+                Card[] sorted = sortedDeck(live);
+                int n = sorted.length;
+                assertEquals(n, deck.cardCount());
+                for (int j = 0; j < n; j += 97) {
+                    assertEquals(n - j, deck.rankOf(sorted[j]));
+                    assertSame(sorted[j], deck.kthStrongest(n - j));
+                }
+                if (n > 0) assertEquals(sorted[n - 1].getAcur(), deck.findForPriority4(0, 0).getAcur());
+            }
+        }
+    }
+}
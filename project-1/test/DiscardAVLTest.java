@@ -0,0 +1,166 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class DiscardAVLTest {
+
+    private static DeadCard dead(String name, int hp, int deathOrder) {
+        return new DeadCard(new Card(name, 10, hp, deathOrder), deathOrder);
+    }
+
+    // Pre-order keys with child flags: equal only for identical trees
+    private static String shapeOf(DiscardAVL pile) {
+        DeadCard[] cards = new DeadCard[pile.size()];
+        byte[] shape = new byte[pile.size()];
+        int n = pile.dumpPreOrder(cards, shape);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) sb.append(cards[i].getDiscardKey()).append('/').append(shape[i]).append(' ');
+        return sb.toString();
+    }
+
+    // Pile size must follow every insert once, also among equal Hmissing
+    @Test
+    void equalHmissingInsertsCountOnce() {
+        DiscardAVL pile = new DiscardAVL();
+        for (int i = 1; i <= 5; i++) {
+            pile.insert(dead("c" + i, 8, i));
+            assertEquals(i, pile.size());
+        }
+        pile.insert(dead("d", 3, 6));
+        pile.insert(dead("e", 3, 7));
+        assertEquals(7, pile.size());
+
+        pile.delete(pile.minMissing());
+        assertEquals(6, pile.size());
+    }
+
+    @Test
+    void partialTargetIsEarliestDeathAmongEqual() {
+        DiscardAVL pile = new DiscardAVL();
+        pile.insert(dead("late", 4, 7));
+        pile.insert(dead("early", 4, 2));
+        pile.insert(dead("big", 9, 1));
+        assertEquals("early", pile.minMissing().getName());
+        assertEquals(3, pile.size());
+    }
+
+    @Test
+    void bestFullTakesLargestFittingHmissing() {
+        DiscardAVL pile = new DiscardAVL();
+        pile.insert(dead("a", 3, 1));
+        pile.insert(dead("b", 7, 2));
+        pile.insert(dead("c", 5, 3));
+        assertEquals("c", pile.bestFull(6).getName());
+        assertEquals("b", pile.bestFull(100).getName());
+        assertNull(pile.bestFull(2));
+    }
+
+    // replaceMin must leave the same tree as delete + insert, in place or not
+    @Test
+    void replaceMinMatchesDeleteInsert() {
+        SplittableRandom rng = new SplittableRandom(7);
+        for (int round = 0; round < 200; round++) {
+            DiscardAVL a = new DiscardAVL();
+            DiscardAVL b = new DiscardAVL();
+            int n = 1 + rng.nextInt(40);
+            int order = 0;
+            for (int i = 0; i < n; i++) {
+                int hp = 2 + rng.nextInt(30);
+                order++;
+                a.insert(dead("c" + order, hp, order));
+                b.insert(dead("c" + order, hp, order));
+            }
+            for (int step = 0; step < 20; step++) {
+                DeadCard minA = a.minMissing();
+                DeadCard minB = b.minMissing();
+                order++;
+                if (minA.getHmissing() < 2) break;
+                int heal = 1 + rng.nextInt(minA.getHmissing() - 1);
+                minA.applyPartial(heal);
+                minA.setDeathOrder(order);
+                a.replaceMin(minA);
+
+                b.delete(minB);
+                minB.applyPartial(heal);
+                minB.setDeathOrder(order);
+                b.insert(minB);
+                assertEquals(shapeOf(b), shapeOf(a));
+                assertEquals(b.size(), a.size());
+            }
+        }
+    }
+
+    // A forked pile must not see the other branch's in-place partial revive
+    @Test
+    void replaceMinCopiesSharedNodes() {
+        DiscardAVL pile = new DiscardAVL();
+        for (int i = 1; i <= 3; i++) pile.insert(dead("c" + i, 5 + i, i));
+        DiscardAVL branch = pile.fork();
+        String before = shapeOf(pile);
+
+        DeadCard min = branch.minMissing().copy();
+        min.applyPartial(2);
+        min.setDeathOrder(10);
+        branch.replaceMin(min);
+
+        assertEquals(before, shapeOf(pile));
+        assertSame(min, branch.minMissing());
+    }
+
+    // The one-pass full revive picks and deletes exactly like the bestFull / delete loop
+    @Test
+    void takeFullMatchesBestFullLoop() {
+        SplittableRandom rng = new SplittableRandom(11);
+        DiscardAVL batch = new DiscardAVL();
+        DiscardAVL loop = new DiscardAVL();
+        int death = 0;
+        for (int round = 0; round < 200; round++) {
+            for (int i = rng.nextInt(8); i > 0; i--) {
+                death++;
+                int hm = 1 + rng.nextInt(12);
+                batch.insert(dead("c" + death, hm, death));
+                loop.insert(dead("c" + death, hm, death));
+            }
+            int heal = rng.nextInt(40);
+            DeadCard[] taken = new DeadCard[batch.size()];
+            int n = batch.takeFull(heal, taken);
+
+            int left = heal;
+            int k = 0;
+            DeadCard best;
+            while (left > 0 && (best = loop.bestFull(left)) != null) {
+                loop.delete(best);
+                left -= best.getHmissing();
+                assertEquals(best.getName(), taken[k++].getName());
+            }
+            assertEquals(k, n);
+            assertEquals(shapeOf(loop), shapeOf(batch));
+            assertEquals(loop.size(), batch.size());
+        }
+    }
+
+    @Test
+    void preOrderRoundTripKeepsShape() {
+        DiscardAVL pile = new DiscardAVL();
+        SplittableRandom rng = new SplittableRandom(3);
+        for (int i = 1; i <= 100; i++) pile.insert(dead("c" + i, 1 + rng.nextInt(10), i));
+        for (int i = 0; i < 30; i++) {
+            DeadCard best = pile.bestFull(1 + rng.nextInt(10));
+            if (best != null) pile.delete(best);
+        }
+
+        DeadCard[] cards = new DeadCard[pile.size()];
+        byte[] shape = new byte[pile.size()];
+        int n = pile.dumpPreOrder(cards, shape);
+        DiscardAVL copy = new DiscardAVL();
+        copy.loadPreOrder(cards, shape, n);
+
+        assertEquals(shapeOf(pile), shapeOf(copy));
+        assertEquals(pile.size(), copy.size());
+        assertEquals(pile.getHeight(pile.root), copy.getHeight(copy.root));
+    }
+}
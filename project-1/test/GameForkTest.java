@@ -0,0 +1,93 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class GameForkTest {
+
+    // Random script over every deck and pile command; small value ranges so bands,
+    // equal keys, deaths and revives all recur
+    private static List<String> script(long seed, int n) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int op = rng.nextInt(20);
+            String name = "c" + rng.nextInt(40);
+            if (op < 8) lines.add("draw_card " + name + " " + (1 + rng.nextInt(30)) + " " + (1 + rng.nextInt(60)));
+            else if (op < 13) lines.add("battle " + rng.nextInt(40) + " " + rng.nextInt(60) + " " + rng.nextInt(80));
+            else if (op == 13) lines.add("steal_card " + rng.nextInt(30) + " " + rng.nextInt(60));
+            else if (op == 14) lines.add("deck_rank " + name);
+            else if (op == 15) lines.add("kth_strongest " + rng.nextInt(50));
+            else if (op == 16) lines.add("deck_count");
+            else if (op == 17) lines.add("discard_pile_count");
+            else lines.add("find_winning");
+        }
+        return lines;
+    }
+
+    private static void play(Game game, List<String> lines) throws IOException {
+        byte[] bytes = (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+        CommandReader in = new CommandReader(ByteBuffer.wrap(bytes));
+        int command;
+        while ((command = in.nextCommand()) != CommandReader.END) assertTrue(game.execute(command, in));
+    }
+
+    // Output of a fresh game replaying prefix and then rest, for the rest only
+    private static byte[] freshReplay(String engine, List<String> prefix, List<String> rest) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ResponseEncoder out = new ResponseEncoder(bytes);
+        Game game = new Game(out, engine);
+        play(game, prefix);
+        out.flush();
+        bytes.reset();
+        play(game, rest);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    // A branch forked at a cut plays another script while the parent keeps running its own;
+    // each must answer exactly like a game that replayed its whole history from scratch
+    @Test
+    void forkAndParentMatchFreshReplays() throws IOException {
+        List<String> main = script(1, 3000);
+        List<String> other = script(2, 1500);
+        for (String engine : new String[] {"avl", "segment", "btree"}) {
+            for (int cut : new int[] {0, 1, 400, 1700, 2999}) {
+                List<String> prefix = main.subList(0, cut);
+                List<String> parentRest = main.subList(cut, main.size());
+
+                ByteArrayOutputStream parentBytes = new ByteArrayOutputStream();
+                ResponseEncoder parentOut = new ResponseEncoder(parentBytes);
+                Game parent = new Game(parentOut, engine);
+                play(parent, prefix);
+                parentOut.flush();
+                parentBytes.reset();
+
+                ByteArrayOutputStream branchBytes = new ByteArrayOutputStream();
+                ResponseEncoder branchOut = new ResponseEncoder(branchBytes);
+                Game branch = parent.fork(branchOut);
+
+                // Interleave the two so every change of one lands while the other shares its nodes
+                int step = 100;
+                for (int i = 0; i < Math.max(parentRest.size(), other.size()); i += step) {
+                    if (i < parentRest.size()) play(parent, parentRest.subList(i, Math.min(i + step, parentRest.size())));
+                    if (i < other.size()) play(branch, other.subList(i, Math.min(i + step, other.size())));
+                }
+                parentOut.flush();
+                branchOut.flush();
+
+                String where = engine + " cut " + cut;
+                assertArrayEquals(freshReplay(engine, prefix, parentRest), parentBytes.toByteArray(), where);
+                assertArrayEquals(freshReplay(engine, prefix, other), branchBytes.toByteArray(), where);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class NameIndexTest {
+
+    @Test
+    void strongestFollowsDeckOrder() {
+        NameIndex names = new NameIndex();
+        Card weak = new Card("x", 3, 10, 1);
+        Card healthy = new Card("x", 5, 20, 2);
+        Card strong = new Card("x", 5, 30, 3);
+        Card other = new Card("y", 9, 9, 4);
+        names.add(weak);
+        names.add(strong);
+        names.add(healthy);
+        names.add(other);
+        assertSame(strong, names.strongest("x"));
+
+        names.remove(strong);
+        assertSame(healthy, names.strongest("x"));
+        names.remove(healthy);
+        names.remove(weak);
+        assertNull(names.strongest("x"));
+        assertSame(other, names.strongest("y"));
+        assertNull(names.strongest("z"));
+    }
+
+    // A drawn card can get the entry order a survivor got just before it
+    @Test
+    void equalEntryOrdersAreKeptApart() {
+        NameIndex names = new NameIndex();
+        Card survivor = new Card("x", 4, 7, 2);
+        Card drawn = new Card("x", 6, 1, 2);
+        names.add(survivor);
+        names.add(drawn);
+        assertSame(drawn, names.strongest("x"));
+        names.remove(drawn);
+        assertSame(survivor, names.strongest("x"));
+    }
+}
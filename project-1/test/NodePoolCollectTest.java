@@ -0,0 +1,91 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+class NodePoolCollectTest {
+
+    private static Card[] randomCards(int n, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        Card[] cards = new Card[n];
+        for (int i = 0; i < n; i++) cards[i] = new Card("c" + i, 1 + rng.nextInt(50), 1 + rng.nextInt(1000), i);
+        return cards;
+    }
+
+    // Both branches delete every card: the nodes they shared are freed by neither, collect
+    // must give back all of them
+    @Test
+    void pileNodesReturnAfterForkAndDeletes() {
+        DiscardAVL pile = new DiscardAVL();
+        DeadCard[] dead = new DeadCard[5000];
+        for (int i = 0; i < dead.length; i++) {
+            dead[i] = new DeadCard(new Card("c" + i, 5, 1 + i % 97, i), i);
+            pile.insert(dead[i]);
+        }
+        DiscardAVL branch = pile.fork();
+        for (DeadCard d : dead) {
+            pile.delete(d);
+            branch.delete(d);
+        }
+        assertTrue(pile.isEmpty() && branch.isEmpty());
+        assertTrue(pile.pool.size() > 0); // shared nodes nobody released
+
+        pile.pool.collect();
+        assertEquals(0, pile.pool.size());
+    }
+
+    @Test
+    void deckNodesReturnAfterForkAndDeletes() {
+        for (String engine : new String[] {"avl", "segment", "btree"}) {
+            NodePool cardNodes = new NodePool(16);
+            DeckEngine deck = DeckEngine.create(engine, cardNodes);
+            Card[] cards = randomCards(4000, 1);
+            for (Card c : cards) deck.insert(c);
+            DeckEngine branch = deck.fork();
+            for (Card c : cards) {
+                deck.delete(c);
+                branch.delete(c);
+            }
+            cardNodes.collect();
+            assertEquals(0, cardNodes.size(), engine);
+        }
+    }
+
+    // Each branch drops a different half: collect keeps exactly what either still holds
+    @Test
+    void collectKeepsNodesStillReachable() {
+        NodePool cardNodes = new NodePool(16);
+        DeckEngine deck = DeckEngine.create("avl", cardNodes);
+        Card[] cards = randomCards(3000, 2);
+        for (Card c : cards) deck.insert(c);
+        DeckEngine branch = deck.fork();
+        for (int i = 0; i < cards.length; i++) {
+            if (i % 2 == 0) deck.delete(cards[i]);
+            else branch.delete(cards[i]);
+        }
+        Card[] before = new Card[cards.length];
+        Card[] branchBefore = new Card[cards.length];
+        int n = deck.dumpInOrder(before, 0);
+        int m = branch.dumpInOrder(branchBefore, 0);
+
+        cardNodes.collect();
+        assertTrue(cardNodes.size() <= n + m);
+
+        Card[] after = new Card[cards.length];
+        Card[] branchAfter = new Card[cards.length];
+        assertEquals(n, deck.dumpInOrder(after, 0));
+        assertEquals(m, branch.dumpInOrder(branchAfter, 0));
+        assertArrayEquals(before, after);
+        assertArrayEquals(branchBefore, branchAfter);
+
+        // Released handles are reused, not shared with the live trees
+        for (int i = 0; i < cards.length; i += 2) deck.insert(cards[i]);
+        Card[] branchLater = new Card[cards.length];
+        branch.dumpInOrder(branchLater, 0);
+        assertArrayEquals(branchBefore, branchLater);
+        assertEquals(cards.length, deck.cardCount());
+    }
+}